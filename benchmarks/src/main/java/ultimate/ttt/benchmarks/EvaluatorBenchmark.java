@@ -0,0 +1,75 @@
+package ultimate.ttt.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ultimate.ttt.ai.NeuralNetwork;
+import ultimate.ttt.engine.Position;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Positions per second through an untrained {@link NeuralNetwork}, one at a time and in batches of 16
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EvaluatorBenchmark {
+
+    private static final int BATCH = 16;
+
+    @Param({"64", "128"})
+    public int hidden;
+
+    private NeuralNetwork network;
+    private float[] inputs;
+    private final float[] batchInputs = new float[BATCH * NeuralNetwork.INPUTS];
+    private final float[] values = new float[BATCH];
+    private final float[] logits = new float[BATCH * Position.CELLS];
+    private int next;
+
+    @Setup
+    public void setup() {
+        network = NeuralNetwork.random(hidden, SeedPositions.SEED);
+        Position[] positions = SeedPositions.create();
+        inputs = new float[positions.length * NeuralNetwork.INPUTS];
+        for (int i = 0; i < positions.length; i++) NeuralNetwork.encode(positions[i], inputs, i * NeuralNetwork.INPUTS);
+    }
+
+    @Benchmark
+    public float single() {
+        System.arraycopy(inputs, nextOffset(1), batchInputs, 0, NeuralNetwork.INPUTS);
+        network.forward(batchInputs, 1, values, logits);
+        return values[0];
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public float batch() {
+        System.arraycopy(inputs, nextOffset(BATCH), batchInputs, 0, batchInputs.length);
+        network.forward(batchInputs, BATCH, values, logits);
+        return values[0];
+    }
+
+    /**
+     * @return index of the first input of the next {@code count} seed positions
+     */
+    private int nextOffset(int count) {
+        if (next + count > SeedPositions.COUNT) next = 0;
+        int offset = next * NeuralNetwork.INPUTS;
+        next += count;
+        return offset;
+    }
+}
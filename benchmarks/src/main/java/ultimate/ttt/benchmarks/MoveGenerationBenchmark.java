@@ -0,0 +1,70 @@
+package ultimate.ttt.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import ultimate.ttt.ai.RandomBot;
+import ultimate.ttt.engine.Position;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Legal-move generation and make/unmake over the seed positions
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoveGenerationBenchmark {
+
+    private Position[] positions;
+    private final int[] moves = new int[Position.CELLS];
+    private SplittableRandom random;
+
+    @Setup
+    public void setup() {
+        positions = SeedPositions.create();
+        random = new SplittableRandom(SeedPositions.SEED);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SeedPositions.COUNT)
+    public void legalMoves(Blackhole blackhole) {
+        for (Position position : positions) {
+            blackhole.consume(position.legalMoves(moves));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SeedPositions.COUNT)
+    public void randomMove(Blackhole blackhole) {
+        for (Position position : positions) {
+            blackhole.consume(RandomBot.randomMove(position, random));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SeedPositions.COUNT)
+    public void makeUnmakeAllMoves(Blackhole blackhole) {
+        for (Position position : positions) {
+            int count = position.legalMoves(moves);
+            for (int i = 0; i < count; i++) {
+                position.makeMove(moves[i]);
+                blackhole.consume(position.hash());
+                position.unmakeMove();
+            }
+        }
+    }
+}
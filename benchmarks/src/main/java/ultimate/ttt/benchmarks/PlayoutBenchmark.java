@@ -0,0 +1,62 @@
+package ultimate.ttt.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ultimate.ttt.Player;
+import ultimate.ttt.ai.RandomBot;
+import ultimate.ttt.engine.Position;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Random playouts per second, from the empty board and from the seed positions
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlayoutBenchmark {
+
+    private final Position empty = new Position();
+    private final Position scratch = new Position();
+    private Position[] positions;
+    private SplittableRandom random;
+    private int next;
+
+    @Setup
+    public void setup() {
+        positions = SeedPositions.create();
+        random = new SplittableRandom(SeedPositions.SEED);
+    }
+
+    @Benchmark
+    public Player fromEmptyBoard() {
+        return playout(empty);
+    }
+
+    @Benchmark
+    public Player fromSeedPositions() {
+        Position start = positions[next];
+        next = (next + 1) % positions.length;
+        return playout(start);
+    }
+
+    private Player playout(Position start) {
+        scratch.copyFrom(start);
+        while (!scratch.isGameOver()) {
+            scratch.makeMove(RandomBot.randomMove(scratch, random));
+        }
+        return scratch.winner();
+    }
+}
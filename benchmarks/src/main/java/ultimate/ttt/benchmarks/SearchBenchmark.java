@@ -0,0 +1,147 @@
+package ultimate.ttt.benchmarks;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ultimate.ttt.ai.AlphaBetaBot;
+import ultimate.ttt.ai.BatchedEvaluator;
+import ultimate.ttt.ai.MctsBot;
+import ultimate.ttt.ai.NeuralNetwork;
+import ultimate.ttt.ai.ParallelMctsBot;
+import ultimate.ttt.engine.Position;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Search throughput of the bots on the seed positions. <br>
+ * The {@code nodes} and {@code playouts} counters divided by the measured time give nodes and playouts per second.
+ * {@link #parallelMcts} gives every thread the playout budget of {@link #mcts}, so with enough processors its
+ * playouts per second grow with the thread count. {@link #parallelNetwork} does the same with PUCT searches whose
+ * leaves go through a {@link BatchedEvaluator}, its {@code playouts} are network evaluations; the average batch
+ * size is printed after every iteration.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+
+    private static final int ALPHA_BETA_DEPTH = 6;
+    private static final int MCTS_PLAYOUTS = 2_000;
+    private static final int NETWORK_EVALUATIONS = 200;
+    private static final int NETWORK_HIDDEN = 64;
+    private static final long BATCH_WAIT_MICROS = 500;
+
+    private Position[] positions;
+    private int next;
+
+    private AlphaBetaBot alphaBetaBot;
+    private MctsBot mctsBot;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+        public long nodes;
+        public long playouts;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            nodes = 0;
+            playouts = 0;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Parallel {
+        @Param({"1", "2", "4"})
+        public int threads;
+
+        private ParallelMctsBot bot;
+
+        @Setup
+        public void setup() {
+            bot = new ParallelMctsBot(threads, 0, MCTS_PLAYOUTS, SeedPositions.SEED);
+        }
+
+        @TearDown
+        public void tearDown() {
+            bot.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ParallelNetwork {
+        @Param({"1", "2", "4"})
+        public int threads;
+
+        private BatchedEvaluator evaluator;
+        private ParallelMctsBot bot;
+
+        @Setup(Level.Iteration)
+        public void setup() {
+            NeuralNetwork network = NeuralNetwork.random(NETWORK_HIDDEN, SeedPositions.SEED);
+            evaluator = new BatchedEvaluator(network, threads, BATCH_WAIT_MICROS);
+            bot = new ParallelMctsBot(threads, evaluator, 0, NETWORK_EVALUATIONS, SeedPositions.SEED);
+        }
+
+        @TearDown(Level.Iteration)
+        public void tearDown() {
+            System.out.printf("average batch size %.2f%n", evaluator.getAverageBatchSize());
+            bot.close();
+        }
+    }
+
+    @Setup
+    public void setup() {
+        positions = SeedPositions.create();
+        alphaBetaBot = new AlphaBetaBot(ALPHA_BETA_DEPTH, 0, 4);
+        mctsBot = new MctsBot(0, MCTS_PLAYOUTS, SeedPositions.SEED);
+    }
+
+    @Benchmark
+    public int alphaBeta(Counters counters) {
+        int move = alphaBetaBot.chooseMove(nextPosition());
+        counters.nodes += alphaBetaBot.getLastNodes();
+        return move;
+    }
+
+    @Benchmark
+    public int mcts(Counters counters) {
+        int move = mctsBot.chooseMove(nextPosition());
+        counters.playouts += mctsBot.getLastPlayouts();
+        return move;
+    }
+
+    @Benchmark
+    public int parallelMcts(Parallel parallel, Counters counters) {
+        int move = parallel.bot.chooseMove(nextPosition());
+        counters.playouts += parallel.bot.getLastPlayouts();
+        return move;
+    }
+
+    @Benchmark
+    public int parallelNetwork(ParallelNetwork parallel, Counters counters) {
+        int move = parallel.bot.chooseMove(nextPosition());
+        counters.playouts += parallel.bot.getLastPlayouts();
+        return move;
+    }
+
+    private Position nextPosition() {
+        Position position = positions[next];
+        next = (next + 1) % positions.length;
+        return position;
+    }
+}
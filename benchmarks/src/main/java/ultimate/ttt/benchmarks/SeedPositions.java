@@ -0,0 +1,44 @@
+package ultimate.ttt.benchmarks;
+
+import ultimate.ttt.ai.RandomBot;
+import ultimate.ttt.engine.Position;
+
+import java.util.SplittableRandom;
+
+/**
+ * Reproducible set of positions shared by all benchmarks, reached by random play from a fixed seed
+ */
+final class SeedPositions {
+
+    static final long SEED = 20260101L;
+    static final int COUNT = 256;
+
+    private SeedPositions() {
+    }
+
+    /**
+     * @return {@link #COUNT} positions between the opening and the late middle game, none of them over
+     */
+    static Position[] create() {
+        SplittableRandom random = new SplittableRandom(SEED);
+        Position[] positions = new Position[COUNT];
+        for (int i = 0; i < COUNT; i++) {
+            positions[i] = playRandomly(random, random.nextInt(50));
+        }
+        return positions;
+    }
+
+    private static Position playRandomly(SplittableRandom random, int plies) {
+        Position position = new Position();
+        for (int ply = 0; ply < plies; ply++) {
+            int move = RandomBot.randomMove(position, random);
+            position.makeMove(move);
+            if (position.isGameOver()) {
+                // keep every seed position playable
+                position.unmakeMove();
+                break;
+            }
+        }
+        return position;
+    }
+}
@@ -0,0 +1,94 @@
+package ultimate.ttt.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import ultimate.ttt.Player;
+import ultimate.ttt.engine.Lines;
+import ultimate.ttt.engine.Position;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local and global win, dead-board and draw detection on the tile and board masks of the seed positions
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WinDetectionBenchmark {
+
+    private static final int LOCAL_MASKS = SeedPositions.COUNT * 9;
+
+    private int[] blueTiles;
+    private int[] redTiles;
+    private int[] blueBoards;
+    private int[] blockedForBlue;
+    private Position[] positions;
+
+    @Setup
+    public void setup() {
+        positions = SeedPositions.create();
+        blueTiles = new int[LOCAL_MASKS];
+        redTiles = new int[LOCAL_MASKS];
+        blueBoards = new int[SeedPositions.COUNT];
+        blockedForBlue = new int[SeedPositions.COUNT];
+
+        for (int i = 0; i < positions.length; i++) {
+            Position position = positions[i];
+            for (int board = 0; board < 9; board++) {
+                blueTiles[i * 9 + board] = position.localMask(Player.BLUE, board);
+                redTiles[i * 9 + board] = position.localMask(Player.RED, board);
+            }
+            blueBoards[i] = position.claimedBoards(Player.BLUE);
+            blockedForBlue[i] = position.claimedBoards(Player.RED) | position.drawnBoards();
+        }
+    }
+
+    /**
+     * Board.checkForWinner equivalent: won or dead local board
+     */
+    @Benchmark
+    @OperationsPerInvocation(LOCAL_MASKS)
+    public void localWinOrDead(Blackhole blackhole) {
+        for (int i = 0; i < LOCAL_MASKS; i++) {
+            int blue = Lines.classify(blueTiles[i]);
+            int red = Lines.classify(redTiles[i]);
+            boolean dead = (blue & red & Lines.BLOCKING) != 0;
+            blackhole.consume(((blue | red) & Lines.WON) != 0 || dead);
+        }
+    }
+
+    /**
+     * Global win and open-line check on the macro masks
+     */
+    @Benchmark
+    @OperationsPerInvocation(SeedPositions.COUNT)
+    public void globalWinOrOpen(Blackhole blackhole) {
+        for (int i = 0; i < SeedPositions.COUNT; i++) {
+            blackhole.consume(Lines.isWon(blueBoards[i]) || Lines.isOpen(blockedForBlue[i]));
+        }
+    }
+
+    /**
+     * UltimateBoard.checkForDraw equivalent
+     */
+    @Benchmark
+    @OperationsPerInvocation(SeedPositions.COUNT)
+    public void checkForDraw(Blackhole blackhole) {
+        for (Position position : positions) {
+            blackhole.consume(position.isDraw());
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package ultimate.ttt;
+
+import javafx.css.PseudoClass;
+import javafx.geometry.HPos;
+import javafx.geometry.VPos;
+import javafx.scene.control.Button;
+import javafx.scene.layout.AnchorPane;
+import javafx.scene.layout.GridPane;
+import javafx.scene.layout.Pane;
+import javafx.scene.shape.Rectangle;
+import javafx.scene.text.Text;
+import ultimate.ttt.ai.Analysis;
+import ultimate.ttt.engine.Position;
+
+/**
+ * Shows an {@link Analysis} on top of the board: an evaluation bar split between blue and red, the principal
+ * variation and the expected result of every legal move on its tile, with the best move highlighted. <br>
+ * Moves of the variation are written as local board and tile, both numbered 1-9 in reading order.
+ */
+public class AnalysisOverlay {
+
+    private static final PseudoClass HINT = PseudoClass.getPseudoClass("hint");
+    private static final double BAR_HEIGHT = 6;
+
+    private final Button[] buttons = new Button[Position.CELLS];
+    private final Text[] cellScores = new Text[Position.CELLS];
+    private final Pane bar = new Pane();
+    private final Rectangle blueBar = new Rectangle();
+    private final Rectangle redBar = new Rectangle();
+    private final Text summary = new Text();
+
+    private int hinted = -1;
+    private boolean visible;
+
+    /**
+     * @param buttons   all tiles as built by the controller
+     * @param container pane holding the board, the bar and the variation are laid over its top edge
+     */
+    public AnalysisOverlay(Button[][][][] buttons, AnchorPane container) {
+        for (int cell = 0; cell < Position.CELLS; cell++) {
+            int board = Position.boardOf(cell);
+            int square = Position.squareOf(cell);
+            Button button = buttons[board / 3][board % 3][square / 3][square % 3];
+            this.buttons[cell] = button;
+
+            // shares the tile's cell of the local grid and lets clicks through to the tile
+            Text score = new Text();
+            score.getStyleClass().add("analysisScore");
+            score.setMouseTransparent(true);
+            score.setVisible(false);
+            GridPane.setHalignment(score, HPos.CENTER);
+            GridPane.setValignment(score, VPos.CENTER);
+            ((GridPane) button.getParent()).add(score, square % 3, square / 3);
+            cellScores[cell] = score;
+        }
+
+        blueBar.getStyleClass().add("evaluationBlue");
+        redBar.getStyleClass().add("evaluationRed");
+        blueBar.setHeight(BAR_HEIGHT);
+        redBar.setHeight(BAR_HEIGHT);
+        summary.getStyleClass().add("analysisSummary");
+        summary.setLayoutX(8);
+        summary.setLayoutY(BAR_HEIGHT + 18);
+        bar.getChildren().addAll(blueBar, redBar, summary);
+        bar.setMouseTransparent(true);
+        bar.setVisible(false);
+        AnchorPane.setTopAnchor(bar, 0.0);
+        AnchorPane.setLeftAnchor(bar, 0.0);
+        AnchorPane.setRightAnchor(bar, 0.0);
+        container.getChildren().add(bar);
+        bar.widthProperty().addListener((observable, oldValue, newValue) -> layoutBar(blueShare()));
+    }
+
+    public void setVisible(boolean visible) {
+        this.visible = visible;
+        bar.setVisible(visible);
+        if (!visible) clear();
+    }
+
+    /**
+     * Removes the result of the previous position, the bar returns to even
+     */
+    public void clear() {
+        for (Text score : cellScores) score.setVisible(false);
+        setHint(-1);
+        summary.setText("");
+        layoutBar(0.5);
+    }
+
+    /**
+     * @param analysis    result for the current position
+     * @param sideToMove  player the scores of the analysis belong to
+     */
+    public void show(Analysis analysis, Player sideToMove) {
+        if (!visible) return;
+
+        double blue = sideToMove == Player.BLUE ? analysis.score() : 1 - analysis.score();
+        layoutBar(blue);
+
+        double[] scores = analysis.cellScores();
+        for (int cell = 0; cell < Position.CELLS; cell++) {
+            Text score = cellScores[cell];
+            if (Double.isNaN(scores[cell])) {
+                score.setVisible(false);
+                continue;
+            }
+            score.setText(Math.round(scores[cell] * 100) + "%");
+            score.setVisible(true);
+        }
+        setHint(analysis.bestMove());
+
+        StringBuilder text = new StringBuilder();
+        text.append(sideToMove == Player.BLUE ? "Blue " : "Red ")
+                .append(Math.round(analysis.score() * 100)).append("%  ");
+        for (int move : analysis.principalVariation()) {
+            text.append(' ').append(Position.boardOf(move) + 1).append('.').append(Position.squareOf(move) + 1);
+        }
+        text.append("   ").append(analysis.playouts() / 1000).append("k playouts");
+        summary.setText(text.toString());
+    }
+
+    private void setHint(int cell) {
+        if (cell == hinted) return;
+        if (hinted >= 0) buttons[hinted].pseudoClassStateChanged(HINT, false);
+        if (cell >= 0) buttons[cell].pseudoClassStateChanged(HINT, true);
+        this.hinted = cell;
+    }
+
+    private double blueShare() {
+        double width = blueBar.getWidth() + redBar.getWidth();
+        return width == 0 ? 0.5 : blueBar.getWidth() / width;
+    }
+
+    private void layoutBar(double blue) {
+        double width = bar.getWidth();
+        blueBar.setWidth(width * blue);
+        redBar.setX(width * blue);
+        redBar.setWidth(width * (1 - blue));
+    }
+}
@@ -0,0 +1,107 @@
+package ultimate.ttt;
+
+import javafx.application.Platform;
+import ultimate.ttt.ai.Analysis;
+import ultimate.ttt.ai.MctsBot;
+import ultimate.ttt.engine.Position;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Evaluates positions continuously on a background thread with {@link MctsBot#ponder(Position, long)}. <br>
+ * Every call of {@link #analyze(Position)} starts a new generation: the worker checks the generation between
+ * small slices of playouts and drops the old position within a fraction of a millisecond, keeping the part of
+ * its tree that is still reachable. Results are handed to the FX thread at most once per interval, and a result
+ * that is still waiting when a newer one arrives is replaced instead of queued. The analysis of a position stops
+ * once its tree holds the maximum number of nodes, which bounds the memory of the tree as the kept part of it
+ * counts as well.
+ */
+public class Analyzer {
+
+    // playouts between two checks for a newer position
+    private static final int SLICE_PLAYOUTS = 256;
+
+    private final Consumer<Analysis> onUpdate;
+    private final long intervalNanos;
+    private final long maxNodes;
+
+    private final ExecutorService worker;
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicReference<Update> latest = new AtomicReference<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    // only used on the worker thread
+    private final MctsBot bot = MctsBot.forPondering(System.nanoTime());
+
+    /**
+     * @param onUpdate       receives the results on the FX thread
+     * @param intervalMillis minimum time between two results
+     * @param maxNodes       size of the search tree at which the analysis of a position stops
+     */
+    public Analyzer(Consumer<Analysis> onUpdate, long intervalMillis, long maxNodes) {
+        this.onUpdate = onUpdate;
+        this.intervalNanos = intervalMillis * 1_000_000L;
+        this.maxNodes = maxNodes;
+        this.worker = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "analysis");
+            thread.setDaemon(true);
+            // the computer player's search goes first
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+
+    /**
+     * Stops analysing the previous position and starts with the given one, called on the FX thread
+     * @param position position to analyse, copied before this returns
+     */
+    public void analyze(Position position) {
+        long current = generation.incrementAndGet();
+        if (position.isGameOver()) return;
+
+        Position snapshot = new Position();
+        snapshot.copyFrom(position);
+        worker.execute(() -> search(snapshot, current));
+    }
+
+    /**
+     * Stops analysing, results of the stopped analysis are no longer reported
+     */
+    public void stop() {
+        generation.incrementAndGet();
+    }
+
+    private void search(Position position, long searchGeneration) {
+        long lastPublished = System.nanoTime();
+        while (generation.get() == searchGeneration) {
+            bot.ponder(position, SLICE_PLAYOUTS);
+            if (bot.getRootVisits() >= maxNodes) break;
+
+            long now = System.nanoTime();
+            if (now - lastPublished >= intervalNanos) {
+                publish(new Update(searchGeneration, bot.analysis()));
+                lastPublished = now;
+            }
+        }
+        if (generation.get() == searchGeneration) publish(new Update(searchGeneration, bot.analysis()));
+    }
+
+    private void publish(Update update) {
+        latest.set(update);
+        if (scheduled.getAndSet(true)) return;
+        Platform.runLater(() -> {
+            scheduled.set(false);
+            Update next = latest.getAndSet(null);
+            // results of a position that was left meanwhile are dropped
+            if (next != null && next.generation == generation.get()) onUpdate.accept(next.analysis);
+        });
+    }
+
+    private record Update(long generation, Analysis analysis) {
+    }
+}
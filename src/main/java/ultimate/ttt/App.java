@@ -1,5 +1,6 @@
 package ultimate.ttt;
 
+import javafx.animation.AnimationTimer;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.geometry.Rectangle2D;
@@ -7,6 +8,7 @@ import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.image.Image;
 import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
 import javafx.scene.paint.Color;
 import javafx.stage.Screen;
 import javafx.stage.Stage;
@@ -22,8 +24,10 @@ public class App extends Application {
     @Override
     public void start(Stage stage) throws IOException {
 
+        StartupTimer.mark("launch");
         FXMLLoader loader = new FXMLLoader(getClass().getResource("/GUI/ultimateTicTacToeGUI.fxml"));
         Parent root = loader.load();
+        StartupTimer.mark("fxml");
 
         stage.initStyle(StageStyle.TRANSPARENT);
 
@@ -53,10 +57,37 @@ public class App extends Application {
             if (event.getCode() == KeyCode.R) {
                 myController.restart();
             }
+            if (event.getCode() == KeyCode.A) {
+                myController.toggleAnalysis();
+            }
+        });
+        // move history: Z / left takes back, Y / right replays, home and end jump to the ends of the game.
+        // A filter sees the keys before the focused tile, which would use the arrows, home and end for focus traversal
+        scene.addEventFilter(KeyEvent.KEY_PRESSED, event -> {
+            switch (event.getCode()) {
+                case Z, LEFT -> myController.undo();
+                case Y, RIGHT -> myController.redo();
+                case HOME -> myController.goToStart();
+                case END -> myController.goToEnd();
+                default -> {
+                    return;
+                }
+            }
+            event.consume();
         });
 
         stage.setScene(scene);
         stage.show();
+        StartupTimer.mark("show");
+
+        // the first pulse after showing the stage renders the first frame
+        new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                stop();
+                StartupTimer.mark("first frame");
+            }
+        }.start();
     }
 
     public static void main(String[] args) {
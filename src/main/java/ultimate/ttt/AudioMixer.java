@@ -0,0 +1,161 @@
+package ultimate.ttt;
+
+import javafx.scene.media.AudioClip;
+
+/**
+ * Small mixing layer in front of {@link AudioClip}. <br>
+ * All sounds share a bounded pool of voices. A sound is dropped if it was started less than its minimum
+ * interval ago; if it already plays on its maximum number of voices, or if the pool is full, the oldest voice
+ * of the lowest priority is stolen. Since an {@link AudioClip} can only stop all of its instances at once,
+ * stealing a voice stops every voice of that sound. The master volume replaces muting every clip separately. <br>
+ * Voices are freed by the estimated length of their sound, as {@link AudioClip} does not report the end of
+ * playback. Must only be used on the FX thread.
+ */
+public class AudioMixer {
+
+    private final Sound[] voiceSounds;
+    private final long[] voiceStarts;
+    private final long[] voiceEnds;
+
+    private double masterVolume = 1.0;
+
+    /**
+     * @param voices number of sounds that may play at the same time
+     */
+    public AudioMixer(int voices) {
+        this.voiceSounds = new Sound[voices];
+        this.voiceStarts = new long[voices];
+        this.voiceEnds = new long[voices];
+    }
+
+    /**
+     * Registers a sound with the mixer
+     * @param clip        loaded clip
+     * @param lengthMillis length of the clip at normal rate
+     * @param minIntervalMillis minimum time between two starts of the sound
+     * @param maxVoices   maximum number of voices the sound may play on at once
+     * @param priority    sounds may only steal voices of sounds with the same or a lower priority
+     */
+    public Sound add(AudioClip clip, long lengthMillis, long minIntervalMillis, int maxVoices, int priority) {
+        return new Sound(clip, lengthMillis * 1_000_000L, minIntervalMillis * 1_000_000L, maxVoices, priority);
+    }
+
+    /**
+     * Plays a sound at full volume, centered and at normal rate
+     * @return false if the sound was dropped
+     */
+    public boolean play(Sound sound) {
+        return play(sound, 1.0, 0.0, 1.0);
+    }
+
+    /**
+     * Plays a sound if the rate limit and the voice pool allow it
+     * @param sound  sound to play, null while it is still loading
+     * @param volume volume 0.0-1.0, multiplied by the master volume
+     * @param pan    stereo position -1.0 (left) to 1.0 (right)
+     * @param rate   playback rate, 1.0 for normal speed
+     * @return false if the sound was dropped
+     */
+    public boolean play(Sound sound, double volume, double pan, double rate) {
+        if (sound == null || masterVolume == 0.0) return false;
+        long now = System.nanoTime();
+        if (sound.started && now - sound.lastStartNanos < sound.minIntervalNanos) return false;
+
+        int free = -1;
+        int active = 0;
+        int victim = -1;
+        for (int voice = 0; voice < voiceSounds.length; voice++) {
+            Sound playing = voiceSounds[voice];
+            if (playing != null && voiceEnds[voice] <= now) {
+                voiceSounds[voice] = null;
+                playing = null;
+            }
+            if (playing == null) {
+                if (free == -1) free = voice;
+            } else if (playing == sound) {
+                active++;
+            } else if (playing.priority <= sound.priority && (victim == -1 || isOlderAndLower(voice, victim))) {
+                victim = voice;
+            }
+        }
+
+        if (active >= sound.maxVoices) {
+            free = stop(sound);
+        } else if (free == -1) {
+            if (victim == -1) return false;
+            free = stop(voiceSounds[victim]);
+        }
+
+        sound.clip.play(volume * masterVolume, pan, rate, 0.0, 0);
+        voiceSounds[free] = sound;
+        voiceStarts[free] = now;
+        voiceEnds[free] = now + (long) (sound.lengthNanos / rate);
+        sound.lastStartNanos = now;
+        sound.started = true;
+        return true;
+    }
+
+    /**
+     * @param volume 0.0 mutes and stops all sounds, 1.0 plays them at their own volume
+     */
+    public void setMasterVolume(double volume) {
+        this.masterVolume = volume;
+        if (volume == 0.0) {
+            for (Sound playing : voiceSounds) {
+                if (playing != null) stop(playing);
+            }
+        }
+    }
+
+    public double getMasterVolume() {
+        return masterVolume;
+    }
+
+    /**
+     * @return true if the voice should rather be stolen than the current victim
+     */
+    private boolean isOlderAndLower(int voice, int victim) {
+        int priority = voiceSounds[voice].priority;
+        int victimPriority = voiceSounds[victim].priority;
+        if (priority != victimPriority) return priority < victimPriority;
+        return voiceStarts[voice] < voiceStarts[victim];
+    }
+
+    /**
+     * Stops every voice of the sound
+     * @return index of the first freed voice
+     */
+    private int stop(Sound sound) {
+        sound.clip.stop();
+        int first = -1;
+        for (int voice = 0; voice < voiceSounds.length; voice++) {
+            if (voiceSounds[voice] != sound) continue;
+            voiceSounds[voice] = null;
+            if (first == -1) first = voice;
+        }
+        return first;
+    }
+
+    /**
+     * Sound registered with {@link #add(AudioClip, long, long, int, int)}
+     */
+    public static final class Sound {
+        private final AudioClip clip;
+        private final long lengthNanos;
+        private final long minIntervalNanos;
+        private final int maxVoices;
+        private final int priority;
+
+        private long lastStartNanos;
+        private boolean started;
+
+        private Sound(AudioClip clip, long lengthNanos, long minIntervalNanos, int maxVoices, int priority) {
+            if (maxVoices < 1) throw new IllegalArgumentException("A sound needs at least one voice");
+            this.clip = clip;
+            this.lengthNanos = lengthNanos;
+            this.minIntervalNanos = minIntervalNanos;
+            this.maxVoices = maxVoices;
+            this.priority = priority;
+        }
+    }
+}
@@ -1,25 +1,55 @@
 package ultimate.ttt;
 
-import javafx.animation.KeyFrame;
-import javafx.animation.Timeline;
+import javafx.css.PseudoClass;
 import javafx.scene.control.Button;
-import javafx.scene.media.AudioClip;
-import javafx.util.Duration;
 
+import java.util.Arrays;
+
+/**
+ * View of one local board. <br>
+ * The colour of a tile is a CSS pseudo-class defined in {@code ultimateTicTacToe.css}: {@code :blue}, {@code :red}
+ * or {@code :draw}; the local board itself has the style class {@code local-board} and carries {@code :playable}
+ * while the player to move may play in it.
+ * The board remembers which of its buttons are enabled and coloured, so every change only touches the buttons
+ * whose appearance actually differs.
+ */
 public class Board {
+    private static final int ALL_TILES = 0x1FF;
+    private static final long LOCAL_FILL_STEP_NANOS = 75_000_000L;
+
+    private static final PseudoClass BLUE = PseudoClass.getPseudoClass("blue");
+    private static final PseudoClass RED = PseudoClass.getPseudoClass("red");
+    private static final PseudoClass DRAW = PseudoClass.getPseudoClass("draw");
+    private static final PseudoClass PLAYABLE = PseudoClass.getPseudoClass("playable");
+
     private Button[][] board = new Button[3][3];
     private final ButtonState[][] buttonStates = new ButtonState[3][3];
+    // 9-bit masks (bit = row * 3 + column) of the buttons that are claimed and enabled
+    private int claimedTiles;
+    private int enabledTiles;
+    // colour shown by every button, UNCLAIMED for none
+    private final BoardState[] shownColours = new BoardState[9];
+    private boolean playable;
     private BoardState state;
-    private AudioClip localWinSound;
+    private final Runnable localWinSound;
+    private final TileAnimator animator;
 
     /**
      * Constructor sets new board's state to {@link BoardState#UNCLAIMED} and all contained buttons' state to {@link ButtonState#EMPTY}
-     * @param board 2D array of {@link Button}
+     * @param board 2D array of {@link Button}, all of them enabled and unstyled
+     * @param localWinSound plays the sound of a won local board
+     * @param animator animation driver shared by all local boards
      */
-    public Board(Button[][] board, AudioClip localWinSound) {
+    public Board(Button[][] board, Runnable localWinSound, TileAnimator animator) {
         this.board = board;
         this.localWinSound = localWinSound;
-        state = BoardState.UNCLAIMED;
+        this.animator = animator;
+        this.state = BoardState.UNCLAIMED;
+        this.enabledTiles = ALL_TILES;
+        this.playable = true;
+        Arrays.fill(shownColours, BoardState.UNCLAIMED);
+        board[0][0].getParent().getStyleClass().add("local-board");
+        board[0][0].getParent().pseudoClassStateChanged(PLAYABLE, true);
 
         for(int row=0; row<3; row++) {
             for(int col=0; col<3; col++) {
@@ -29,192 +59,161 @@ public class Board {
     }
 
     /**
-     * Processes a player's move on a local board. <br>
-     * This method updates the visual styling and internal state of the clicked tile
-     * based on the active player. It then evaluates if the current move results
-     * in a victory for this local board. If a winner is found, it locks the board,
-     * updates its overall state, and triggers the local victory animation.
+     * Shows a claimed or cleared tile. <br>
+     * A claimed tile is painted in the player's color and disabled. While the board is claimed by a player,
+     * its tiles keep the winner's color.
      *
-     * @param localRow    The row index (0-2) of the clicked button within this local board.
-     * @param localColumn The column index (0-2) of the clicked button within this local board.
-     * @param player      The {@link Player} enum representing the player making the move (e.g., BLUE or RED).
+     * @param localRow    The row index (0-2) of the button within this local board.
+     * @param localColumn The column index (0-2) of the button within this local board.
+     * @param tileState   new state of the tile
      */
-    public void buttonPress(int localRow, int localColumn, Player player) {
-
-        Button affectedButton = board[localRow][localColumn];
-        affectedButton.setDisable(true);
-
-        if(player == Player.BLUE) {
-            affectedButton.setStyle("-fx-background-color: #007aff");
-            buttonStates[localRow][localColumn] = ButtonState.CLAIMED_BLUE;
-        }
-
-        if(player == Player.RED) {
-            affectedButton.setStyle("-fx-background-color: #fc3c2f");
-            buttonStates[localRow][localColumn] = ButtonState.CLAIMED_RED;
+    public void setTile(int localRow, int localColumn, ButtonState tileState) {
+        buttonStates[localRow][localColumn] = tileState;
+        int bit = 1 << (localRow * 3 + localColumn);
+        if (tileState == ButtonState.EMPTY) claimedTiles &= ~bit;
+        else claimedTiles |= bit;
+
+        if (state != BoardState.CLAIMED_BLUE && state != BoardState.CLAIMED_RED) {
+            show(localRow, localColumn, colourOf(tileState));
         }
-
-        Player winner = this.checkForWinner();
-
-        // no more operations in case of no winner
-        if(winner == Player.NONE) return;
-
-        this.localWinSound.play();
-        this.disableAllButtons();
-        this.claimAll(winner);
-        this.paintAllButtons();
+        updateEnabled();
     }
 
     /**
-     * Checks for local winners horizontally, vertically, and diagonally (top-right to bottom-left & top-left to bottom-right)
-     * @return {@link Player#RED} or {@link Player#BLUE} in case of there being a winner <br>
-     * {@link Player#NONE} if there is no winner
+     * Shows the new state of the board. <br>
+     * A board won by a player plays the local win sound and is painted in the winner's color;
+     * a board that is no longer won shows its tiles again.
      */
-    private Player checkForWinner() {
-        Player winner = Player.NONE;
-
-        for (int i = 0; i < 3; i++) {
-            // Horizontal check
-            if (isClaimed(buttonStates[i][0]) &&
-                    buttonStates[i][0] == buttonStates[i][1] &&
-                    buttonStates[i][0] == buttonStates[i][2]) {
-                winner = (buttonStates[i][0] == ButtonState.CLAIMED_RED) ? Player.RED : Player.BLUE;
-            }
-            // Vertical check
-            else if (isClaimed(buttonStates[0][i]) &&
-                    buttonStates[0][i] == buttonStates[1][i] &&
-                    buttonStates[0][i] == buttonStates[2][i]) {
-                winner = (buttonStates[0][i] == ButtonState.CLAIMED_RED) ? Player.RED : Player.BLUE;
-            }
-        }
-
-        // Diagonal checks
-        if (winner == Player.NONE) {
-            if (isClaimed(buttonStates[0][0]) && buttonStates[0][0] == buttonStates[1][1] && buttonStates[0][0] == buttonStates[2][2]) {
-                winner = (buttonStates[0][0] == ButtonState.CLAIMED_RED) ? Player.RED : Player.BLUE;
-            } else if (isClaimed(buttonStates[0][2]) && buttonStates[0][2] == buttonStates[1][1] && buttonStates[0][2] == buttonStates[2][0]) {
-                winner = (buttonStates[0][2] == ButtonState.CLAIMED_RED) ? Player.RED : Player.BLUE;
+    public void setState(BoardState newState) {
+        BoardState previous = this.state;
+        this.state = newState;
+
+        if (newState == BoardState.CLAIMED_BLUE || newState == BoardState.CLAIMED_RED) {
+            this.localWinSound.run();
+            this.paintAllButtons();
+        } else if (previous == BoardState.CLAIMED_BLUE || previous == BoardState.CLAIMED_RED) {
+            for (int row = 0; row < 3; row++) {
+                for (int column = 0; column < 3; column++) {
+                    show(row, column, colourOf(buttonStates[row][column]));
+                }
             }
         }
-
-        // Update BoardState
-        if (winner == Player.RED) {
-            this.state = BoardState.CLAIMED_RED;
-            return Player.RED;
-        } else if (winner == Player.BLUE) {
-            this.state = BoardState.CLAIMED_BLUE;
-            return Player.BLUE;
-        }
-
-        // If neither Blue nor Red have a valid path to victory, it's a dead board.
-        if (!canPlayerWinLocal(Player.BLUE) && !canPlayerWinLocal(Player.RED)) {
-            this.state = BoardState.DRAW;
-        }
-
-        // No winner (might be drawn, might be unclaimed)
-        return Player.NONE;
     }
 
     /**
-     * Predictive check to see if a player has at least one possible path to victory.
-     * A path is valid if it contains none of the opponent's claimed tiles.
+     * Enables the empty buttons if the player to move may play in this board, otherwise disables all of them
      */
-    private boolean canPlayerWinLocal(Player player) {
-        ButtonState opponent = (player == Player.BLUE) ? ButtonState.CLAIMED_RED : ButtonState.CLAIMED_BLUE;
-
-        for (int i = 0; i < 3; i++) {
-
-            if (buttonStates[i][0] != opponent && buttonStates[i][1] != opponent && buttonStates[i][2] != opponent) return true;
-
-            if (buttonStates[0][i] != opponent && buttonStates[1][i] != opponent && buttonStates[2][i] != opponent) return true;
-        }
-
-        if (buttonStates[0][0] != opponent && buttonStates[1][1] != opponent && buttonStates[2][2] != opponent) return true;
-        if (buttonStates[0][2] != opponent && buttonStates[1][1] != opponent && buttonStates[2][0] != opponent) return true;
-
-        return false;
+    public void setPlayable(boolean playable) {
+        if (this.playable != playable) board[0][0].getParent().pseudoClassStateChanged(PLAYABLE, playable);
+        this.playable = playable;
+        updateEnabled();
     }
 
     /**
-     * Sets the board to CLAIMED_X and all of its Buttons to CLAIMED_X
-     * @param winner {@link Player#BLUE} or {@link Player#RED}
+     * Returns the board to a new game: empty, unstyled and playable
      */
-    private void claimAll(Player winner) {
-        ButtonState winningState;
-        if (winner == Player.BLUE) {
-            this.state = BoardState.CLAIMED_BLUE;
-            winningState = ButtonState.CLAIMED_BLUE;
-        } else {
-            this.state = BoardState.CLAIMED_RED;
-            winningState = ButtonState.CLAIMED_RED;
-        }
-        for(int r = 0; r < 3; r++) {
-            for (int c = 0; c < 3; c++) {
-                buttonStates[r][c] = winningState;
+    public void reset() {
+        for (int row = 0; row < 3; row++) {
+            for (int column = 0; column < 3; column++) {
+                buttonStates[row][column] = ButtonState.EMPTY;
+                show(row, column, BoardState.UNCLAIMED);
             }
         }
+        this.claimedTiles = 0;
+        this.state = BoardState.UNCLAIMED;
+        setPlayable(true);
     }
 
     /**
-     * Disables all buttons of the current local board
+     * Shows the colours belonging to the tiles and the state of the board without animation,
+     * replacing whatever an animation painted
      */
-    public void disableAllButtons() {
-        for(int row = 0; row < 3; row++) {
-            for(int column = 0; column < 3; column++) {
-                board[row][column].setDisable(true);
+    public void repaint() {
+        boolean won = state == BoardState.CLAIMED_BLUE || state == BoardState.CLAIMED_RED;
+        for (int row = 0; row < 3; row++) {
+            for (int column = 0; column < 3; column++) {
+                show(row, column, won ? state : colourOf(buttonStates[row][column]));
             }
         }
     }
 
     /**
-     * Enables all buttons of the current local board, unless they are already claimed
+     * Queues every button that does not show the colour yet to be painted, one step after another
+     * @param animator   shared animation driver
+     * @param colour     {@link BoardState#CLAIMED_BLUE}, {@link BoardState#CLAIMED_RED} or {@link BoardState#DRAW}
+     * @param stepNanos  delay between two buttons
      */
-    public void enableAllButtons() {
-        for(int row = 0; row < 3; row++) {
-            for(int column = 0; column < 3; column++) {
-                if(buttonStates[row][column] == ButtonState.CLAIMED_RED || buttonStates[row][column] == ButtonState.CLAIMED_BLUE) continue;
-                board[row][column].setDisable(false);
-            }
+    public void queueFill(TileAnimator animator, BoardState colour, long stepNanos) {
+        for (int square = 0; square < 9; square++) {
+            if (shownColours[square] != colour) animator.paint(this, square, colour, stepNanos);
         }
     }
 
     /**
-     * Paints all buttons in the winner's color, using a {@link Timeline} on a 75 ms delay
+     * Shows a colour on a button, called by the {@link TileAnimator}
+     * @param square index 0-8 of the button
+     * @param colour colour to show, {@link BoardState#UNCLAIMED} for none
      */
-    private void paintAllButtons() {
-        //no painting done if no winner
-        if (this.state == BoardState.UNCLAIMED || this.state == BoardState.DRAW) return;
+    void showTile(int square, BoardState colour) {
+        show(square / 3, square % 3, colour);
+    }
 
-        String style;
-        if (this.state == BoardState.CLAIMED_BLUE) {
-            style = "-fx-background-color: #007aff";
-        } else {
-            style = "-fx-background-color: #fc3c2f";
+    /**
+     * Enables or disables only the buttons whose state differs from the wanted one
+     */
+    private void updateEnabled() {
+        int wanted = playable ? ALL_TILES & ~claimedTiles : 0;
+        int changed = enabledTiles ^ wanted;
+        while (changed != 0) {
+            int square = Integer.numberOfTrailingZeros(changed);
+            changed &= changed - 1;
+            board[square / 3][square % 3].setDisable((wanted & (1 << square)) == 0);
         }
+        this.enabledTiles = wanted;
+    }
 
-        Timeline timeline = new Timeline();
-        int delayCounter = 0;
+    /**
+     * Switches the colour pseudo-classes of a button unless it already shows the colour
+     * @param colour colour to show, {@link BoardState#UNCLAIMED} for none
+     */
+    private void show(int row, int column, BoardState colour) {
+        int square = row * 3 + column;
+        BoardState previous = shownColours[square];
+        if (previous == colour) return;
+
+        Button button = board[row][column];
+        PseudoClass previousClass = pseudoClassOf(previous);
+        PseudoClass newClass = pseudoClassOf(colour);
+        if (previousClass != null) button.pseudoClassStateChanged(previousClass, false);
+        if (newClass != null) button.pseudoClassStateChanged(newClass, true);
+        shownColours[square] = colour;
+    }
 
-        for (int row = 0; row < 3; row++) {
-            for (int column = 0; column < 3; column++) {
+    private static PseudoClass pseudoClassOf(BoardState colour) {
+        return switch (colour) {
+            case CLAIMED_BLUE -> BLUE;
+            case CLAIMED_RED -> RED;
+            case DRAW -> DRAW;
+            case UNCLAIMED -> null;
+        };
+    }
 
-                Button button = board[row][column];
+    private static BoardState colourOf(ButtonState tileState) {
+        return switch (tileState) {
+            case CLAIMED_BLUE -> BoardState.CLAIMED_BLUE;
+            case CLAIMED_RED -> BoardState.CLAIMED_RED;
+            case EMPTY -> BoardState.UNCLAIMED;
+        };
+    }
 
-                if(button.getStyle().equals(style)) {
-                    continue;
-                }
-                // Schedule each button to change after a specific delay
-                KeyFrame frame = new KeyFrame(
-                        Duration.millis(delayCounter * 75),
-                        event -> button.setStyle(style)
-                );
-
-                timeline.getKeyFrames().add(frame);
-                delayCounter++;
-            }
-        }
+    /**
+     * Paints all buttons in the winner's color, using the {@link TileAnimator} on a 75 ms delay
+     */
+    private void paintAllButtons() {
+        //no painting done if no winner
+        if (this.state == BoardState.UNCLAIMED || this.state == BoardState.DRAW) return;
 
-        timeline.play();
+        queueFill(animator, this.state, LOCAL_FILL_STEP_NANOS);
     }
 
     /**
@@ -223,22 +222,10 @@ public class Board {
      * true if all tiles have been claimed
      */
     public boolean isFull() {
-        for(int row = 0; row < 3; row++) {
-            for(int column = 0; column < 3; column++) {
-                if(buttonStates[row][column] == ButtonState.EMPTY) {
-                    return false;
-                }
-            }
-        }
-        // if no empty tile found, return true
-        return true;
-    }
-
-    private boolean isClaimed(ButtonState s) {
-        return s == ButtonState.CLAIMED_RED || s == ButtonState.CLAIMED_BLUE;
+        return claimedTiles == ALL_TILES;
     }
 
     public BoardState getState() {
         return state;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,79 @@
+package ultimate.ttt;
+
+import javafx.scene.control.Button;
+import ultimate.ttt.engine.Position;
+
+/**
+ * Shows the game on the 81 tile buttons. <br>
+ * Listens to the {@link UltimateBoard} of the running game and forwards every change to the affected
+ * local {@link Board}, so a move only touches the buttons it changes. The view outlives the games:
+ * {@link #reset()} prepares it for the next one.
+ */
+public class BoardView implements GameListener {
+    private final Board[] boards = new Board[9];
+    // room for a local win animation of every board and the final fill
+    private final TileAnimator animator = new TileAnimator(2 * Position.CELLS);
+
+    /**
+     * @param buttons 4D array of buttons, indexed by global row, global column, local row and local column
+     * @param localWinSound plays the sound of a won local board
+     */
+    public BoardView(Button[][][][] buttons, Runnable localWinSound) {
+        for (int row = 0; row < 3; row++) {
+            for (int column = 0; column < 3; column++) {
+                boards[row * 3 + column] = new Board(buttons[row][column], localWinSound, animator);
+            }
+        }
+    }
+
+    @Override
+    public void cellChanged(int cell, ButtonState state) {
+        int square = Position.squareOf(cell);
+        boards[Position.boardOf(cell)].setTile(square / 3, square % 3, state);
+    }
+
+    @Override
+    public void boardStateChanged(int board, BoardState state) {
+        boards[board].setState(state);
+    }
+
+    @Override
+    public void playableChanged(int previous, int current) {
+        int changed = previous ^ current;
+        while (changed != 0) {
+            int board = Integer.numberOfTrailingZeros(changed);
+            changed &= changed - 1;
+            boards[board].setPlayable((current & (1 << board)) != 0);
+        }
+    }
+
+    /**
+     * Shows an empty board on which every tile is playable, touching only the buttons that changed during the game. <br>
+     * Pending animations of the last game are cancelled.
+     */
+    public void reset() {
+        animator.cancel();
+        for (Board board : boards) board.reset();
+    }
+
+    /**
+     * Cancels pending animations and shows the current state of every tile at once, e.g. before moves are taken
+     * back while a board is still being painted
+     */
+    public void finishAnimations() {
+        animator.cancel();
+        for (Board board : boards) board.repaint();
+    }
+
+    /**
+     * Sequentially paints every button that does not show the colour yet, after the pending animations
+     * @param colour     {@link BoardState#CLAIMED_BLUE}, {@link BoardState#CLAIMED_RED} or {@link BoardState#DRAW}
+     * @param stepMillis delay between two buttons
+     * @param onFinished run once the last button is painted
+     */
+    public void fill(BoardState colour, long stepMillis, Runnable onFinished) {
+        long stepNanos = stepMillis * 1_000_000L;
+        for (Board board : boards) board.queueFill(animator, colour, stepNanos);
+        animator.then(onFinished);
+    }
+}
@@ -1,16 +1,14 @@
 package ultimate.ttt;
 
 import javafx.animation.FadeTransition;
-import javafx.animation.KeyFrame;
 import javafx.animation.PauseTransition;
-import javafx.animation.Timeline;
+import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.scene.Node;
 import javafx.scene.control.Button;
 import javafx.scene.control.Pagination;
 import javafx.scene.control.ToggleButton;
-import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.AnchorPane;
 import javafx.scene.layout.GridPane;
@@ -19,21 +17,58 @@ import javafx.scene.text.Text;
 import javafx.stage.Stage;
 import javafx.util.Duration;
 import javafx.scene.shape.Rectangle;
-
+import ultimate.ttt.ai.BookBot;
+import ultimate.ttt.ai.Bot;
+import ultimate.ttt.ai.EndgameBot;
+import ultimate.ttt.ai.EndgameSolver;
+import ultimate.ttt.ai.MctsBot;
+import ultimate.ttt.book.OpeningBook;
+import ultimate.ttt.book.Tablebase;
+import ultimate.ttt.engine.Position;
+import ultimate.ttt.record.GameRecordWriter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.Year;
-import java.util.Arrays;
-import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 public class Controller {
 
+    private static final long COMPUTER_THINK_MILLIS = 1000;
+
+    // analysis mode: results reach the view at most every 150 ms, a position is analysed until its tree holds
+    // 500k nodes, about 40 MB
+    private static final long ANALYSIS_INTERVAL_MILLIS = 150;
+    private static final long ANALYSIS_NODES = 500_000;
+
+    private static final Path GAME_RECORDS = Path.of(System.getProperty("user.home"), ".ultimate-ttt", "games.uttr");
+
+    // optional, built with OpeningBookBuilder
+    private static final Path OPENING_BOOK = Path.of(System.getProperty("user.home"), ".ultimate-ttt", "book.uttb");
+    private static final int BOOK_PLIES = 12;
+    private static final int BOOK_MIN_GAMES = 4;
+
+    // solved endgame positions, grows with every game against the computer
+    private static final Path TABLEBASE = Path.of(System.getProperty("user.home"), ".ultimate-ttt", "endgame.utte");
+    private static final int ENDGAME_CELLS = 16;
+    private static final long ENDGAME_NODES = 2_000_000;
+    private static final int ENDGAME_CACHE_MEGABYTES = 16;
+
     @FXML
     private AnchorPane root, menu, tutorialPane, page1, page2, page3, page4, page5;
 
     @FXML
     private Pagination tutorial;
 
+    private TutorialPages tutorialPages;
+
     @FXML
     private GridPane masterGrid;
 
@@ -43,11 +78,13 @@ public class Controller {
     @FXML
     private Button[][][][] allButtons;
 
+    private BoardView boardView;
+
     @FXML
     private Button playButton;
 
     @FXML
-    private ToggleButton soundToggle, blueScoreDisplay, redScoreDisplay;
+    private ToggleButton soundToggle, computerToggle, blueScoreDisplay, redScoreDisplay;
 
     @FXML
     private Text bluesTurn, redsTurn, drawtext, copyrightText;
@@ -56,38 +93,141 @@ public class Controller {
 
     private UltimateBoard gameBoard;
 
-    private AudioClip localWinSound, globalWinSound, globalDrawSound, hoverSound, clickSound, gameStart, tileSound;
+    private AudioMixer.Sound localWinSound, globalWinSound, globalDrawSound, hoverSound, clickSound, gameStart, tileSound;
 
-    private AudioClip[] allAudios;
+    private AudioMixer mixer;
+
+    // true once the menu was closed for the first time
+    private boolean gameStarted;
 
     private Random random;
 
     private int blueScore, redScore;
 
-    private void initializeSounds() {
-        this.localWinSound = new AudioClip(getClass().getResource("/Sounds/localVictory.mp3").toExternalForm());
-        this.globalWinSound = new AudioClip(getClass().getResource("/Sounds/victory.mp3").toExternalForm());
-        this.globalDrawSound = new  AudioClip(getClass().getResource("/Sounds/draw.mp3").toExternalForm());
-        this.hoverSound =  new AudioClip(getClass().getResource("/Sounds/swipe.mp3").toExternalForm());
-        this.clickSound = new AudioClip(getClass().getResource("/Sounds/button.mp3").toExternalForm());
-        this.gameStart = new  AudioClip(getClass().getResource("/Sounds/gameStart.mp3").toExternalForm());
-        this.tileSound = new  AudioClip(getClass().getResource("/Sounds/claimTile.mp3").toExternalForm());
-        // aggregate all AudioClips into Array
-        this.allAudios = new AudioClip[] {localWinSound, globalWinSound, globalDrawSound, hoverSound, clickSound, gameStart, tileSound};
+    // Player.NONE when two humans play each other
+    private Player computerPlayer;
+
+    private Bot computer;
+
+    private Tablebase tablebase;
+
+    private ExecutorService computerThread;
+
+    // writes finished games and the tablebase away from the FX thread
+    private ExecutorService recorderThread;
+
+    private Analyzer analyzer;
+
+    private AnalysisOverlay analysisOverlay;
+
+    private boolean analysisMode;
+
+    // changes with every move, undo and restart, so a computer move searched for an older position is dropped
+    private long positionVersion;
+
+    // a decided game counts once for the score and the records, even if its end is taken back and replayed
+    private boolean gameCounted;
+
+    /**
+     * Loads all sounds, called on the startup loader. Sounds are silently skipped until they are loaded.
+     */
+    private void loadSounds() {
+        long start = System.nanoTime();
+        AudioClip[] clips = {
+                loadSound("/Sounds/localVictory.mp3"), loadSound("/Sounds/victory.mp3"), loadSound("/Sounds/draw.mp3"),
+                loadSound("/Sounds/swipe.mp3"), loadSound("/Sounds/button.mp3"), loadSound("/Sounds/gameStart.mp3"),
+                loadSound("/Sounds/claimTile.mp3")
+        };
+        StartupTimer.markSince("sounds", start);
+
+        Platform.runLater(() -> {
+            // lengths in milliseconds, hover and click sounds are rate limited while sweeping over the tiles
+            this.localWinSound = mixer.add(clips[0], 2050, 0, 2, 2);
+            this.globalWinSound = mixer.add(clips[1], 1970, 0, 1, 3);
+            this.globalDrawSound = mixer.add(clips[2], 3130, 0, 1, 3);
+            this.hoverSound = mixer.add(clips[3], 90, 40, 3, 0);
+            this.clickSound = mixer.add(clips[4], 1920, 60, 2, 1);
+            // not played if the game was started before the sound was loaded
+            if (!gameStarted) this.gameStart = mixer.add(clips[5], 920, 0, 1, 3);
+            this.tileSound = mixer.add(clips[6], 400, 0, 3, 1);
+        });
+    }
+
+    private AudioClip loadSound(String path) {
+        return new AudioClip(getClass().getResource(path).toExternalForm());
     }
 
     private void initializeMute() {
+        this.mixer = new AudioMixer(8);
         soundToggle.selectedProperty().addListener((observable, oldValue, newValue) -> {
-            if (newValue) {
-                // if toggled ON = muted
-                for(AudioClip clip : this.allAudios) clip.setVolume(0.0);
-            } else {
-                // if toggled OFF = unmute
-                for(AudioClip clip : this.allAudios) clip.setVolume(1.0);
+            // if toggled ON = muted, if toggled OFF = unmute
+            mixer.setMasterVolume(newValue ? 0.0 : 1.0);
+        });
+    }
+
+    private void initializeComputer() {
+        this.computerPlayer = Player.NONE;
+        // plays without tablebase and book until loadComputerKnowledge has finished
+        this.computer = new MctsBot(COMPUTER_THINK_MILLIS);
+        this.computerThread = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "computer-player");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        // not a daemon, so a game recorded just before the window is closed is still written; the idle thread
+        // ends after a second and lets the application exit
+        ThreadPoolExecutor recorder = new ThreadPoolExecutor(1, 1, 1, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                runnable -> new Thread(runnable, "game-recorder"));
+        recorder.allowCoreThreadTimeOut(true);
+        this.recorderThread = recorder;
+
+        computerToggle.selectedProperty().addListener((observable, oldValue, newValue) -> {
+            // if toggled ON = single player against the computer playing red
+            this.computerPlayer = newValue ? Player.RED : Player.NONE;
+            computerToggle.setText(newValue ? "1P" : "2P");
+            requestComputerMove();
+        });
+    }
+
+    /**
+     * Opens the endgame tablebase and the opening book, called on the startup loader
+     */
+    private void loadComputerKnowledge() {
+        long start = System.nanoTime();
+        Bot bot = new MctsBot(COMPUTER_THINK_MILLIS);
+        Tablebase endgames = null;
+        try {
+            endgames = new Tablebase(TABLEBASE);
+        } catch (IOException e) {
+            // the solver still works without the file, it only forgets its results between sessions
+            System.err.println("Could not open endgame tablebase: " + e.getMessage());
+        }
+        bot = new EndgameBot(new EndgameSolver(endgames, ENDGAME_NODES, ENDGAME_CACHE_MEGABYTES), bot, ENDGAME_CELLS);
+        if (Files.exists(OPENING_BOOK)) {
+            try {
+                // the book stays mapped for the lifetime of the application
+                bot = new BookBot(new OpeningBook(OPENING_BOOK), bot, BOOK_PLIES, BOOK_MIN_GAMES);
+            } catch (IOException e) {
+                System.err.println("Could not open opening book: " + e.getMessage());
             }
+        }
+        StartupTimer.markSince("computer", start);
+
+        Bot loaded = bot;
+        Tablebase loadedEndgames = endgames;
+        Platform.runLater(() -> {
+            this.computer = loaded;
+            this.tablebase = loadedEndgames;
         });
     }
 
+    private void initializeAnalysis() {
+        this.analysisOverlay = new AnalysisOverlay(allButtons, (AnchorPane) masterGrid.getParent());
+        this.analyzer = new Analyzer(analysis -> analysisOverlay.show(analysis, gameBoard.getPosition().sideToMove()),
+                ANALYSIS_INTERVAL_MILLIS, ANALYSIS_NODES);
+    }
+
     private void initializeMainMenu() {
         Rectangle clip = new Rectangle();
 
@@ -106,22 +246,11 @@ public class Controller {
                 "/GUI/GIFs/page1.gif", "/GUI/GIFs/page2.gif", "/GUI/GIFs/page3.gif",
                 "/GUI/GIFs/page4.gif", "/GUI/GIFs/page5.gif"
         };
-
-        for (int i = 0; i < views.length; i++) {
-
-            String url = getClass().getResource(gifPaths[i]).toExternalForm();
-
-            // load GIFs in background thread
-            Image gif = new Image(url, 800, 1000, true, true, true);
-
-            views[i].setImage(gif);
-        }
-
         Node[] pages = {page1, page2, page3, page4, page5};
 
-        tutorial.setPageFactory(pageIndex -> {
-            return pages[pageIndex];
-        });
+        // GIFs are decoded on demand while the tutorial is open
+        this.tutorialPages = new TutorialPages(pages, views, gifPaths, 800, 1000);
+        tutorial.setPageFactory(tutorialPages::page);
 
         Rectangle clip = new Rectangle();
 
@@ -192,16 +321,32 @@ public class Controller {
         this.startingPlayer = Player.BLUE;
 
         this.random = new Random();
-        this.initializeSounds();
         this.initializeMute();
+        this.initializeComputer();
+        StartupTimer.mark("computer setup");
         this.initializeMainMenu();
         this.initializePagination();
         this.initializeIconsAndText();
+        StartupTimer.mark("menu");
         this.initializeGrid();
 
         this.blueScore = 0;
         this.redScore = 0;
-        gameBoard = new UltimateBoard(allButtons, startingPlayer, localWinSound);
+        boardView = new BoardView(allButtons, () -> mixer.play(localWinSound));
+        gameBoard = new UltimateBoard(startingPlayer);
+        gameBoard.addListener(boardView);
+        this.initializeAnalysis();
+        StartupTimer.mark("grid");
+
+        // media and files are loaded after the first frame, in the background
+        ExecutorService loader = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "startup-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        loader.execute(this::loadSounds);
+        loader.execute(this::loadComputerKnowledge);
+        loader.shutdown();
     }
 
     @FXML
@@ -219,19 +364,19 @@ public class Controller {
         playWithPlayerPitch(tileSound, 0.6);
     }
 
-    private void playWithRandomPitchAndPan(AudioClip clip, double volume, double pitchLower, double pitchUpper) {
-        if(clip.getVolume() == 0.0) return;
+    private void playWithRandomPitchAndPan(AudioMixer.Sound sound, double volume, double pitchLower, double pitchUpper) {
+        if(sound == null || mixer.getMasterVolume() == 0.0) return;
         double cents = pitchLower + ((pitchUpper*2) * random.nextDouble());
         double rate = Math.pow(2.0, cents / 1200.0);
         double pan = -0.3 + (0.6 * random.nextDouble());
-        clip.play(volume, pan, rate, 0.0, 0);
+        mixer.play(sound, volume, pan, rate);
     }
 
-    private void playWithPlayerPitch(AudioClip clip, double volume) {
+    private void playWithPlayerPitch(AudioMixer.Sound sound, double volume) {
         if(gameBoard.getCurrentPlayer() == Player.BLUE) {
-            playWithRandomPitchAndPan(clip, volume, -60.0, 10.0);
+            playWithRandomPitchAndPan(sound, volume, -60.0, 10.0);
         } else {
-            playWithRandomPitchAndPan(clip, volume, -10.0, 60.0);
+            playWithRandomPitchAndPan(sound, volume, -10.0, 60.0);
         }
     }
 
@@ -257,21 +402,164 @@ public class Controller {
         int globalCol = (gCol == null) ? 0 : gCol;
         int globalRow = (gRow == null) ? 0 : gRow;
 
-        Player winner = gameBoard.buttonPress(globalRow, globalCol, localRow, localCol);
+        playMove(globalRow, globalCol, localRow, localCol);
+    }
+
+    /**
+     * Executes the game logic of a move, made by a click or by the computer
+     */
+    private void playMove(int globalRow, int globalCol, int localRow, int localCol) {
+        if (afterMove(gameBoard.buttonPress(globalRow, globalCol, localRow, localCol))) requestComputerMove();
+    }
+
+    /**
+     * Shows the outcome of a move that was played or redone
+     * @param winner winner returned by {@link UltimateBoard#buttonPress(int, int, int, int)}
+     * @return true if the game goes on
+     */
+    private boolean afterMove(Player winner) {
+        this.positionVersion++;
+        updateAnalysis();
 
         if (winner == Player.NONE) {
             // only need to switch players if there is no winner
             switchPlayers();
             // only check for draw if no there is no winner
-            if (gameBoard.checkForDraw()) this.draw();
+            if (!gameBoard.checkForDraw()) return true;
+            this.draw();
         }
         // a winner is guaranteed
         else crown(winner);
+        return false;
+    }
+
+    /**
+     * Takes back the last move; against the computer also its reply, so the human player has the turn again
+     */
+    protected void undo() {
+        if (!gameBoard.canUndo()) return;
+        int ply = gameBoard.getPosition().ply() - 1;
+        if (ply > 0 && sideToMoveAt(ply) == computerPlayer) ply--;
+        goToPly(ply);
+    }
+
+    /**
+     * Replays the next move that was taken back; against the computer also its reply
+     */
+    protected void redo() {
+        if (!gameBoard.canRedo()) return;
+        int ply = gameBoard.getPosition().ply() + 1;
+        if (ply < gameBoard.getLineLength() && sideToMoveAt(ply) == computerPlayer) ply++;
+        goToPly(ply);
+    }
+
+    /**
+     * Jumps to the start of the game, its moves can be redone
+     */
+    protected void goToStart() {
+        if (gameBoard.canUndo()) goToPly(0);
+    }
+
+    /**
+     * Jumps to the last move that can be redone
+     */
+    protected void goToEnd() {
+        if (gameBoard.canRedo()) goToPly(gameBoard.getLineLength());
+    }
 
+    /**
+     * Moves through the game with {@link UltimateBoard#goToPly(int)}; only the tiles between the two plies change
+     */
+    private void goToPly(int ply) {
+        boolean wasOver = gameBoard.getPosition().isGameOver();
+        boardView.finishAnimations();
+        if (wasOver && !restartIcon.isDisabled()) this.opacityTransition(restartIcon, 250, false);
+
+        gameBoard.goToPly(ply);
+        this.positionVersion++;
+        updateAnalysis();
+
+        Position position = gameBoard.getPosition();
+        if (position.winner() != Player.NONE) crown(position.winner());
+        else if (position.isGameOver()) draw();
+        else {
+            showTurn();
+            requestComputerMove();
+        }
     }
 
     /**
-     * Displays the correct winner and paints all buttons in the winner's color using {@link #animateBoardFill(String)}
+     * @return the player to move after the given number of moves of the current game
+     */
+    private Player sideToMoveAt(int ply) {
+        Player first = gameBoard.getPosition().firstTurn();
+        if (ply % 2 == 0) return first;
+        return first == Player.BLUE ? Player.RED : Player.BLUE;
+    }
+
+    /**
+     * Shows whose turn it is, replacing a result text
+     */
+    private void showTurn() {
+        drawtext.setVisible(false);
+        bluesTurn.setText("Blue's turn!");
+        redsTurn.setText("Red's turn!");
+        bluesTurn.setVisible(gameBoard.getCurrentPlayer() == Player.BLUE);
+        redsTurn.setVisible(gameBoard.getCurrentPlayer() == Player.RED);
+    }
+
+    /**
+     * Switches the analysis mode on or off
+     */
+    protected void toggleAnalysis() {
+        this.analysisMode = !analysisMode;
+        analysisOverlay.setVisible(analysisMode);
+        if (analysisMode) analyzer.analyze(gameBoard.getPosition());
+        else analyzer.stop();
+    }
+
+    /**
+     * Restarts the analysis on the current position, the result of the previous one is discarded
+     */
+    private void updateAnalysis() {
+        if (!analysisMode) return;
+        analysisOverlay.clear();
+        analyzer.analyze(gameBoard.getPosition());
+    }
+
+    /**
+     * Lets the computer search its move on a background thread if it is its turn.
+     * The board stays disabled until the move is played on the FX thread.
+     */
+    private void requestComputerMove() {
+        if (computerPlayer == Player.NONE || gameBoard.getCurrentPlayer() != computerPlayer) return;
+
+        UltimateBoard board = gameBoard;
+        Position position = board.getPosition();
+        if (position.isGameOver()) return;
+
+        Position snapshot = new Position();
+        snapshot.copyFrom(position);
+        long version = positionVersion;
+        board.disableAllBoards();
+
+        Bot bot = computer;
+        computerThread.execute(() -> {
+            int cell = bot.chooseMove(snapshot);
+            Platform.runLater(() -> {
+                // discard the move if the game was restarted, a move was played or taken back meanwhile
+                if (board != gameBoard || version != positionVersion) return;
+
+                int localBoard = Position.boardOf(cell);
+                int square = Position.squareOf(cell);
+                playTileSound();
+                playMove(localBoard / 3, localBoard % 3, square / 3, square % 3);
+            });
+        });
+    }
+
+    /**
+     * Displays the correct winner and paints all buttons in the winner's color using {@link #animateBoardFill(BoardState)}
      * @param winner
      */
     private void crown(Player winner) {
@@ -280,32 +568,61 @@ public class Controller {
         bluesTurn.setVisible(false);
         redsTurn.setVisible(false);
 
-        String style;
+        BoardState colour;
         if (winner == Player.BLUE) {
-            style = "-fx-background-color: #007aff";
+            colour = BoardState.CLAIMED_BLUE;
             bluesTurn.setText("Blue wins!");
             bluesTurn.setVisible(true);
         } else {
-            style = "-fx-background-color: #fc3c2f";
+            colour = BoardState.CLAIMED_RED;
             redsTurn.setText("Red wins!");
             redsTurn.setVisible(true);
         }
 
-        globalWinSound.play();
-        updateScore(winner);
-        animateBoardFill(style);
+        mixer.play(globalWinSound);
+        if (!gameCounted) {
+            recordGame();
+            updateScore(winner);
+            this.gameCounted = true;
+        }
+        animateBoardFill(colour);
     }
 
     /**
-     * Displays a text saying "Draw!" and paints all buttons in grey using {@link #animateBoardFill(String)}
+     * Displays a text saying "Draw!" and paints all buttons in grey using {@link #animateBoardFill(BoardState)}
      */
     private void draw() {
         bluesTurn.setVisible(false);
         redsTurn.setVisible(false);
         drawtext.setVisible(true);
 
-        globalDrawSound.play();
-        animateBoardFill("-fx-background-color: #8e8e93");
+        mixer.play(globalDrawSound);
+        if (!gameCounted) {
+            recordGame();
+            this.gameCounted = true;
+        }
+        animateBoardFill(BoardState.DRAW);
+    }
+
+    /**
+     * Appends the finished game to {@link #GAME_RECORDS} and saves the endgames solved during it, on the recorder thread
+     */
+    private void recordGame() {
+        Position finished = new Position();
+        finished.copyFrom(gameBoard.getPosition());
+        Tablebase endgames = tablebase;
+        recorderThread.execute(() -> {
+            try {
+                Files.createDirectories(GAME_RECORDS.getParent());
+                try (GameRecordWriter writer = new GameRecordWriter(GAME_RECORDS)) {
+                    writer.write(finished);
+                }
+                if (endgames != null) endgames.flush();
+            } catch (IOException e) {
+                // recording is optional, the game goes on
+                System.err.println("Could not record game: " + e.getMessage());
+            }
+        });
     }
 
     private void updateScore(Player winner) {
@@ -330,41 +647,10 @@ public class Controller {
 
     /**
      * Helper function to help with Draw / Win animation
-     * @param style String containing -fx-background-color which the buttons should be sequentially painted in
+     * @param colour {@link BoardState} whose colour the buttons should be sequentially painted in
      */
-    private void animateBoardFill(String style) {
-        // flatten the 4D array into a simple List
-        List<Button> flatButtons = Arrays.stream(allButtons)
-                .flatMap(Arrays::stream)
-                .flatMap(Arrays::stream)
-                .flatMap(Arrays::stream)
-                .toList();
-
-        // create Timeline
-        Timeline timeline = new Timeline();
-
-        int delayCounter = 0;
-        for (int i = 0; i < flatButtons.size(); i++) {
-            Button button = flatButtons.get(i);
-
-            if (button.getStyle().equals(style)) {
-                continue;
-            }
-
-            KeyFrame frame = new KeyFrame(
-                    Duration.millis(delayCounter * 35),
-                    event -> button.setStyle(style)
-            );
-
-            timeline.getKeyFrames().add(frame);
-            delayCounter++;
-        }
-
-        timeline.setOnFinished(event -> {
-            opacityTransition(restartIcon, 650, true);
-        });
-
-        timeline.play();
+    private void animateBoardFill(BoardState colour) {
+        boardView.fill(colour, 35, () -> opacityTransition(restartIcon, 650, true));
     }
 
     @FXML
@@ -385,25 +671,28 @@ public class Controller {
                 bluesTurn.setVisible(true);
             }
 
-            this.gameBoard = new UltimateBoard(allButtons, startingPlayer, localWinSound);
-
-            List<Button> buttons = Arrays.stream(allButtons)
-                    .flatMap(Arrays::stream)
-                    .flatMap(Arrays::stream)
-                    .flatMap(Arrays::stream)
-                    .toList();
-            for (Button button : buttons) {
-                // reset style for all 81 buttons and enable them to enable first move
-                button.setStyle("");
-                button.setDisable(false);
-            }
+            // only the buttons changed during the last game are reset
+            boardView.reset();
+            this.gameBoard = new UltimateBoard(startingPlayer);
+            gameBoard.addListener(boardView);
+            this.positionVersion++;
+            this.gameCounted = false;
+            updateAnalysis();
 
-            clickSound.play();
+            mixer.play(clickSound);
             this.opacityTransition(restartIcon, 250, false);
+            requestComputerMove();
         }
     }
 
     private void opacityTransition(Node node, int durationMS, boolean in) {
+        opacityTransition(node, durationMS, in, null);
+    }
+
+    /**
+     * @param onFinished run once the transition is finished, may be null
+     */
+    private void opacityTransition(Node node, int durationMS, boolean in, Runnable onFinished) {
 
         if(in) node.setDisable(false);
 
@@ -412,9 +701,10 @@ public class Controller {
         fade.setFromValue(in ? 0.0 : 1.0);
         fade.setToValue(in ? 1.0 : 0.0);
 
-        if(!in) {
-            fade.setOnFinished(event -> node.setDisable(true));
-        }
+        fade.setOnFinished(event -> {
+            if(!in) node.setDisable(true);
+            if(onFinished != null) onFinished.run();
+        });
 
         fade.play();
     }
@@ -431,9 +721,10 @@ public class Controller {
             playButton.setText("Continue");
         } else {
             if(gameStart != null) {
-                gameStart.play();
+                mixer.play(gameStart);
                 gameStart = null;
             }
+            this.gameStarted = true;
             this.opacityTransition(menu, 350, false);
         }
     }
@@ -443,8 +734,9 @@ public class Controller {
         if(tutorialPane.isDisabled()) {
             this.tutorial.setCurrentPageIndex(0);
             this.opacityTransition(tutorialPane, 200, true);
+            tutorialPages.open(tutorial.getCurrentPageIndex());
         } else {
-            this.opacityTransition(tutorialPane, 350, false);
+            this.opacityTransition(tutorialPane, 350, false, tutorialPages::close);
         }
     }
 
@@ -0,0 +1,30 @@
+package ultimate.ttt;
+
+/**
+ * Receives the changes of an {@link UltimateBoard}, so a view only has to update what actually changed. <br>
+ * Cells and boards are indexed like in {@link ultimate.ttt.engine.Position}: board = globalRow * 3 + globalColumn,
+ * cell = board * 9 + localRow * 3 + localColumn.
+ */
+public interface GameListener {
+
+    /**
+     * A tile was claimed, or cleared again
+     * @param cell  index 0-80 of the tile
+     * @param state new state of the tile
+     */
+    void cellChanged(int cell, ButtonState state);
+
+    /**
+     * A local board was won or drawn, or became undecided again
+     * @param board index 0-8 of the local board
+     * @param state new state of the local board
+     */
+    void boardStateChanged(int board, BoardState state);
+
+    /**
+     * The set of local boards the player to move may play in changed
+     * @param previous 9-bit mask of the boards that were playable before
+     * @param current  9-bit mask of the boards that are playable now
+     */
+    void playableChanged(int previous, int current);
+}
@@ -0,0 +1,327 @@
+package ultimate.ttt;
+
+import ultimate.ttt.ai.BookBot;
+import ultimate.ttt.ai.Bot;
+import ultimate.ttt.ai.Bots;
+import ultimate.ttt.ai.EndgameBot;
+import ultimate.ttt.ai.EndgameSolver;
+import ultimate.ttt.book.OpeningBook;
+import ultimate.ttt.book.Tablebase;
+import ultimate.ttt.engine.Position;
+import ultimate.ttt.record.GameRecordWriter;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Headless batch self-play between two bots, without starting the JavaFX {@link App}. <br>
+ * Games are played in parallel and streamed to a file, either as CSV with one line per game:
+ * {@code game,first,winner,plies,forced_moves,free_moves,moves}, where the moves are the space-separated
+ * cell indices 0-80 (see {@link Position}), or in the binary format of {@link GameRecordWriter}.
+ * Every game is seeded from its index, so results do not depend on the number of threads.
+ * <pre>
+ * java -cp UltimateTicTacToe.jar ultimate.ttt.Simulator --games 10000 --blue mcts:2000 --red random --out games.csv
+ * java -cp UltimateTicTacToe.jar ultimate.ttt.Simulator --games 1000000 --format binary --out games.uttr
+ * </pre>
+ */
+public class Simulator {
+
+    private static final int BOOK_PLIES = 12;
+    private static final int BOOK_MIN_GAMES = 4;
+    private static final long ENDGAME_NODES = 2_000_000;
+    private static final int ENDGAME_CACHE_MEGABYTES = 16;
+
+    private static final String HEADER = "game,first,winner,plies,forced_moves,free_moves,moves";
+    // marks the end of a worker's games in the queue
+    private static final FinishedGame END = new FinishedGame(-1, null, 0);
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        long games = 1000;
+        int threads = Runtime.getRuntime().availableProcessors();
+        String blue = "mcts:1000";
+        String red = "random";
+        String first = "alternate";
+        String format = "csv";
+        Path book = null;
+        int endgameCells = 0;
+        Path tablebaseFile = null;
+        long seed = 1;
+        Path out = Path.of("games.csv");
+
+        for (int i = 0; i < args.length; i++) {
+            String value = i + 1 < args.length ? args[i + 1] : null;
+            switch (args[i]) {
+                case "--games" -> games = Long.parseLong(require(args[i], value));
+                case "--threads" -> threads = Integer.parseInt(require(args[i], value));
+                case "--blue" -> blue = require(args[i], value);
+                case "--red" -> red = require(args[i], value);
+                case "--first" -> first = require(args[i], value);
+                case "--seed" -> seed = Long.parseLong(require(args[i], value));
+                case "--out" -> out = Path.of(require(args[i], value));
+                case "--format" -> format = require(args[i], value);
+                case "--book" -> book = Path.of(require(args[i], value));
+                case "--endgame" -> endgameCells = Integer.parseInt(require(args[i], value));
+                case "--tablebase" -> tablebaseFile = Path.of(require(args[i], value));
+                default -> {
+                    System.err.println("Unknown option " + args[i]);
+                    System.err.println("Options: --games N --threads N --blue BOT --red BOT --first blue|red|alternate --seed N --out FILE --format csv|binary --book FILE --endgame CELLS --tablebase FILE");
+                    System.exit(2);
+                }
+            }
+            i++;
+        }
+
+        // fail fast on invalid specifications instead of inside the workers
+        Bots.close(Bots.create(blue, seed));
+        Bots.close(Bots.create(red, seed));
+        if (!first.equals("blue") && !first.equals("red") && !first.equals("alternate")) {
+            throw new IllegalArgumentException("--first must be blue, red or alternate");
+        }
+        if (!format.equals("csv") && !format.equals("binary")) {
+            throw new IllegalArgumentException("--format must be csv or binary");
+        }
+
+        Simulator simulator = new Simulator(games, threads, blue, red, first, seed);
+        Tablebase tablebase = tablebaseFile == null ? null : new Tablebase(tablebaseFile);
+        if (endgameCells > 0) simulator.setEndgameSolver(tablebase, endgameCells);
+        try {
+            if (book == null) {
+                simulator.run(out, format.equals("binary"));
+            } else {
+                try (OpeningBook openingBook = new OpeningBook(book)) {
+                    simulator.setOpeningBook(openingBook);
+                    simulator.run(out, format.equals("binary"));
+                }
+            }
+        } finally {
+            if (tablebase != null) tablebase.close();
+        }
+    }
+
+    private static String require(String option, String value) {
+        if (value == null) throw new IllegalArgumentException("Missing value for " + option);
+        return value;
+    }
+
+    private final long games;
+    private final int threads;
+    private final String blueSpec;
+    private final String redSpec;
+    private final String first;
+    private final long seed;
+
+    private final AtomicLong nextGame = new AtomicLong();
+    private final AtomicLong blueWins = new AtomicLong();
+    private final AtomicLong redWins = new AtomicLong();
+    private final AtomicLong draws = new AtomicLong();
+    private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+
+    private OpeningBook openingBook;
+
+    private int endgameCells;
+    private Tablebase tablebase;
+    // every worker reuses its solver's memory, the cache is cleared before each game so results do not depend
+    // on which worker played the earlier games
+    private final ThreadLocal<EndgameSolver> endgameSolver =
+            ThreadLocal.withInitial(() -> new EndgameSolver(tablebase, ENDGAME_NODES, ENDGAME_CACHE_MEGABYTES));
+
+    public Simulator(long games, int threads, String blueSpec, String redSpec, String first, long seed) {
+        this.games = games;
+        this.threads = threads;
+        this.blueSpec = blueSpec;
+        this.redSpec = redSpec;
+        this.first = first;
+        this.seed = seed;
+    }
+
+    /**
+     * Lets both bots play book moves for the first {@value #BOOK_PLIES} plies
+     * @param openingBook book shared by all workers, null to disable
+     */
+    public void setOpeningBook(OpeningBook openingBook) {
+        this.openingBook = openingBook;
+    }
+
+    /**
+     * Lets both bots play perfectly once at most the given number of cells are left to play
+     * @param tablebase    store of solved positions shared by all workers, null to keep them in memory only.
+     *                     Positions solved by other games can finish a solve within the node budget, so with a
+     *                     tablebase the results also depend on the games played before.
+     * @param endgameCells see {@link Position#openCells()}
+     */
+    public void setEndgameSolver(Tablebase tablebase, int endgameCells) {
+        this.tablebase = tablebase;
+        this.endgameCells = endgameCells;
+    }
+
+    /**
+     * Plays all games and streams every finished game to the file
+     * @param binary true for the binary record format, false for CSV
+     */
+    public void run(Path out, boolean binary) throws IOException, InterruptedException {
+        BlockingQueue<FinishedGame> finished = new ArrayBlockingQueue<>(threads * 64);
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+
+        for (int i = 0; i < threads; i++) {
+            workers.execute(() -> {
+                try {
+                    long game;
+                    while ((game = nextGame.getAndIncrement()) < games) {
+                        finished.put(playGame(game));
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (RuntimeException e) {
+                    failure.compareAndSet(null, e);
+                    // let the other workers stop early
+                    nextGame.set(games);
+                } finally {
+                    signalEnd(finished);
+                }
+            });
+        }
+        workers.shutdown();
+
+        try {
+            if (binary) writeBinary(finished, out);
+            else writeCsv(finished, out);
+        } finally {
+            workers.shutdownNow();
+            workers.awaitTermination(1, TimeUnit.MINUTES);
+        }
+
+        if (failure.get() != null) throw new IllegalStateException("Simulation failed", failure.get());
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d games in %.1f s (%.1f games/s): blue %d, red %d, draws %d%n",
+                games, seconds, games / seconds, blueWins.get(), redWins.get(), draws.get());
+    }
+
+    private void writeCsv(BlockingQueue<FinishedGame> finished, Path out) throws IOException, InterruptedException {
+        try (Writer writer = new BufferedWriter(Files.newBufferedWriter(out, StandardCharsets.UTF_8), 1 << 16)) {
+            writer.write(HEADER);
+            writer.write('\n');
+            int finishedWorkers = 0;
+            while (finishedWorkers < threads) {
+                FinishedGame game = finished.take();
+                if (game == END) {
+                    finishedWorkers++;
+                    continue;
+                }
+                writer.write(game.toCsv());
+                writer.write('\n');
+            }
+        }
+    }
+
+    private void writeBinary(BlockingQueue<FinishedGame> finished, Path out) throws IOException, InterruptedException {
+        // a fresh file per run, like the CSV output
+        Files.deleteIfExists(out);
+        try (GameRecordWriter writer = new GameRecordWriter(out)) {
+            int finishedWorkers = 0;
+            while (finishedWorkers < threads) {
+                FinishedGame game = finished.take();
+                if (game == END) {
+                    finishedWorkers++;
+                    continue;
+                }
+                writer.write(game.position());
+            }
+        }
+    }
+
+    private static void signalEnd(BlockingQueue<FinishedGame> finished) {
+        try {
+            finished.put(END);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Plays one game with freshly created bots
+     */
+    private FinishedGame playGame(long game) {
+        long gameSeed = seed * 0x9E3779B97F4A7C15L + game;
+        Bot blueBot = Bots.create(blueSpec, gameSeed);
+        Bot redBot = Bots.create(redSpec, ~gameSeed);
+        try {
+            return playGame(game, blueBot, redBot);
+        } finally {
+            Bots.close(blueBot);
+            Bots.close(redBot);
+        }
+    }
+
+    private FinishedGame playGame(long game, Bot blue, Bot red) {
+        if (endgameCells > 0) {
+            EndgameSolver solver = endgameSolver.get();
+            solver.clearCache();
+            blue = new EndgameBot(solver, blue, endgameCells);
+            red = new EndgameBot(solver, red, endgameCells);
+        }
+        if (openingBook != null) {
+            blue = new BookBot(openingBook, blue, BOOK_PLIES, BOOK_MIN_GAMES);
+            red = new BookBot(openingBook, red, BOOK_PLIES, BOOK_MIN_GAMES);
+        }
+
+        Player firstTurn = switch (first) {
+            case "blue" -> Player.BLUE;
+            case "red" -> Player.RED;
+            default -> game % 2 == 0 ? Player.BLUE : Player.RED;
+        };
+
+        Position position = new Position(firstTurn);
+        int forcedMoves = 0;
+        while (!position.isGameOver()) {
+            if (position.forcedBoard() != Position.ANY_BOARD) forcedMoves++;
+            Bot bot = position.sideToMove() == Player.BLUE ? blue : red;
+            int move = bot.chooseMove(position);
+            if (!position.isLegal(move)) {
+                throw new IllegalStateException("Illegal move " + move + " in game " + game);
+            }
+            position.makeMove(move);
+        }
+
+        Player winner = position.winner();
+        if (winner == Player.BLUE) blueWins.incrementAndGet();
+        else if (winner == Player.RED) redWins.incrementAndGet();
+        else draws.incrementAndGet();
+
+        return new FinishedGame(game, position, forcedMoves);
+    }
+
+    /**
+     * Game handed from a worker to the writing thread
+     */
+    private record FinishedGame(long game, Position position, int forcedMoves) {
+
+        private String toCsv() {
+            Player winner = position.winner();
+            StringBuilder line = new StringBuilder(256);
+            line.append(game).append(',')
+                    .append(position.firstTurn()).append(',')
+                    .append(winner == Player.NONE ? "DRAW" : winner).append(',')
+                    .append(position.ply()).append(',')
+                    .append(forcedMoves).append(',')
+                    .append(position.ply() - forcedMoves).append(',');
+            for (int ply = 0; ply < position.ply(); ply++) {
+                if (ply > 0) line.append(' ');
+                line.append(position.moveAt(ply));
+            }
+            return line.toString();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package ultimate.ttt;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the startup of the application. <br>
+ * Every stage is logged on completion as one line, so the numbers can be collected across releases:
+ * {@code startup stage=<name> thread=<thread> ms=<duration> total_ms=<time since start>}.
+ * The start is the start of the JVM, so {@code total_ms} of the first frame includes JVM startup and class loading.
+ * Stages of the FX thread are timed from the end of the previous one, the first of them from the start of the
+ * JVM; stages of background threads from the moment they were started.
+ */
+public final class StartupTimer {
+
+    // System#nanoTime() at the start of the JVM, the runtime bean only knows the wall-clock start time
+    private static final long START_NANOS =
+            System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(ManagementFactory.getRuntimeMXBean().getUptime());
+    private static long lastMarkNanos = START_NANOS;
+
+    private StartupTimer() {
+    }
+
+    /**
+     * Ends a stage on the FX thread, which started at the end of the previous one
+     * @param stage name of the stage
+     */
+    public static synchronized void mark(String stage) {
+        long now = System.nanoTime();
+        log(stage, now - lastMarkNanos, now);
+        lastMarkNanos = now;
+    }
+
+    /**
+     * Ends a stage that ran independently of the others, e.g. on a background thread
+     * @param stage      name of the stage
+     * @param startNanos {@link System#nanoTime()} when the stage started
+     */
+    public static synchronized void markSince(String stage, long startNanos) {
+        long now = System.nanoTime();
+        log(stage, now - startNanos, now);
+    }
+
+    private static void log(String stage, long durationNanos, long now) {
+        System.out.printf("startup stage=%s thread=%s ms=%.1f total_ms=%.1f%n",
+                stage, Thread.currentThread().getName(), durationNanos / 1e6, (now - START_NANOS) / 1e6);
+    }
+}
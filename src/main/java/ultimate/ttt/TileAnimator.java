@@ -0,0 +1,119 @@
+package ultimate.ttt;
+
+import javafx.animation.AnimationTimer;
+
+/**
+ * Single driver for all tile-paint animations. <br>
+ * Paint effects are queued in a preallocated ring buffer and applied in order, one step apart, by one
+ * {@link AnimationTimer} pulse; nothing is allocated per frame. The timer only runs while effects are pending,
+ * and {@link #cancel()} drops all of them, so a restart never gets painted over by an old animation.
+ */
+public class TileAnimator extends AnimationTimer {
+
+    private final Board[] boards;
+    private final int[] squares;
+    private final BoardState[] colours;
+    private final Runnable[] actions;
+    private final long[] dueNanos;
+    private final int mask;
+
+    private int head;
+    private int size;
+    // due time of the last queued effect
+    private long tailNanos;
+    private boolean running;
+
+    /**
+     * @param capacity number of effects that can be pending at once, rounded up to a power of two;
+     *                 effects beyond it are applied immediately
+     */
+    public TileAnimator(int capacity) {
+        int length = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1);
+        this.boards = new Board[length];
+        this.squares = new int[length];
+        this.colours = new BoardState[length];
+        this.actions = new Runnable[length];
+        this.dueNanos = new long[length];
+        this.mask = length - 1;
+    }
+
+    /**
+     * Queues a tile to be painted one step after the previously queued effect, or right away if none is pending
+     * @param board     local board of the tile
+     * @param square    index 0-8 of the tile within the board
+     * @param colour    colour to show
+     * @param stepNanos delay after the previous effect
+     */
+    public void paint(Board board, int square, BoardState colour, long stepNanos) {
+        if (size == boards.length) {
+            board.showTile(square, colour);
+            return;
+        }
+        int index = enqueue(stepNanos);
+        boards[index] = board;
+        squares[index] = square;
+        colours[index] = colour;
+    }
+
+    /**
+     * Queues an action to run once all previously queued effects have been applied
+     */
+    public void then(Runnable action) {
+        if (size == boards.length) {
+            action.run();
+            return;
+        }
+        int index = enqueue(0);
+        actions[index] = action;
+    }
+
+    /**
+     * Drops all pending effects without applying them
+     */
+    public void cancel() {
+        while (size > 0) clear(head++ & mask);
+        this.head = 0;
+        stopRunning();
+    }
+
+    @Override
+    public void handle(long now) {
+        while (size > 0 && dueNanos[head & mask] <= now) {
+            int index = head++ & mask;
+            Board board = boards[index];
+            Runnable action = actions[index];
+            if (board != null) board.showTile(squares[index], colours[index]);
+            clear(index);
+            // last, as the action may queue new effects
+            if (action != null) action.run();
+        }
+        if (size == 0) stopRunning();
+    }
+
+    private int enqueue(long stepNanos) {
+        long now = System.nanoTime();
+        this.tailNanos = size == 0 ? now : Math.max(now, tailNanos + stepNanos);
+        int index = (head + size) & mask;
+        dueNanos[index] = tailNanos;
+        size++;
+        if (!running) {
+            running = true;
+            start();
+        }
+        return index;
+    }
+
+    private void clear(int index) {
+        boards[index] = null;
+        colours[index] = null;
+        actions[index] = null;
+        size--;
+    }
+
+    private void stopRunning() {
+        if (running) {
+            running = false;
+            stop();
+        }
+    }
+}
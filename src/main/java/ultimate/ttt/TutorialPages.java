@@ -0,0 +1,106 @@
+package ultimate.ttt;
+
+import javafx.scene.Node;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+
+import java.net.URL;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Page source of the tutorial {@link javafx.scene.control.Pagination}. <br>
+ * The GIF of a page is only decoded when the page is shown while the tutorial is open, in the background.
+ * The most recently shown pages stay decoded; all of them are released when the tutorial is closed.
+ * A missing GIF leaves its page without an animation instead of failing.
+ */
+public class TutorialPages {
+    private static final int CACHED_PAGES = 2;
+
+    private final Node[] pages;
+    private final ImageView[] views;
+    private final String[] gifPaths;
+    private final double width;
+    private final double height;
+
+    // decoded GIFs by page index, least recently shown first
+    private final Map<Integer, Image> decoded = new LinkedHashMap<>(4, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Image> eldest) {
+            if (size() <= CACHED_PAGES) return false;
+            views[eldest.getKey()].setImage(null);
+            return true;
+        }
+    };
+
+    private boolean open;
+
+    /**
+     * @param pages    page nodes, each one containing the view of its GIF
+     * @param views    views showing the GIFs, one per page
+     * @param gifPaths resource paths of the GIFs, one per page
+     * @param width    width the GIFs are decoded at
+     * @param height   height the GIFs are decoded at
+     */
+    public TutorialPages(Node[] pages, ImageView[] views, String[] gifPaths, double width, double height) {
+        this.pages = pages;
+        this.views = views;
+        this.gifPaths = gifPaths;
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Page factory of the pagination
+     * @param index index of the page to show
+     * @return the page node, with its GIF if the tutorial is open
+     */
+    public Node page(int index) {
+        if (open) showGif(index);
+        return pages[index];
+    }
+
+    /**
+     * Starts decoding GIFs, beginning with the given page
+     */
+    public void open(int index) {
+        this.open = true;
+        showGif(index);
+    }
+
+    /**
+     * Releases all decoded GIFs
+     */
+    public void close() {
+        this.open = false;
+        for (int index : decoded.keySet()) views[index].setImage(null);
+        decoded.clear();
+    }
+
+    private void showGif(int index) {
+        Image gif = decoded.get(index);
+        if (gif == null) {
+            gif = load(index);
+            if (gif == null) return;
+            decoded.put(index, gif);
+        }
+        views[index].setImage(gif);
+    }
+
+    /**
+     * @return the GIF of the page, decoded in a background thread, null if it is missing
+     */
+    private Image load(int index) {
+        URL url = getClass().getResource(gifPaths[index]);
+        if (url == null) {
+            System.err.println("Missing tutorial GIF " + gifPaths[index]);
+            return null;
+        }
+
+        Image gif = new Image(url.toExternalForm(), width, height, true, true, true);
+        gif.errorProperty().addListener((observable, oldValue, error) -> {
+            if (error) System.err.println("Could not load tutorial GIF " + gifPaths[index] + ": " + gif.getException());
+        });
+        return gif;
+    }
+}
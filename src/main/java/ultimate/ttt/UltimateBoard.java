@@ -1,40 +1,47 @@
 package ultimate.ttt;
 
-import javafx.scene.control.Button;
-import javafx.scene.media.AudioClip;
+import ultimate.ttt.engine.Position;
+
+import java.util.ArrayList;
+import java.util.List;
 
 public class UltimateBoard {
-    private Board[][] boards;
+    private static final int ALL_BOARDS = 0x1FF;
+
+    private final List<GameListener> listeners = new ArrayList<>();
     private Player currentTurn;
+    private final Position position;
+    // 9-bit mask of the local boards the listeners were last told to be playable
+    private int playable;
+    // moves of the game in order; the moves after the current ply were undone and can be redone
+    private final int[] line = new int[Position.CELLS];
+    private int lineLength;
 
     /**
-     * Constructs all local boards and assigns them to {@link #boards}
-     * @param buttons 4D array of buttons
+     * Starts a new game, in which every local board is playable
      * @param firstTurn {@link Player} who has the first turn
      */
-    public UltimateBoard(Button[][][][] buttons, Player firstTurn, AudioClip localWinSound) {
-
-        this.boards = new Board[3][3];
+    public UltimateBoard(Player firstTurn) {
         this.currentTurn = firstTurn;
+        this.position = new Position(firstTurn);
+        this.playable = ALL_BOARDS;
+    }
 
-        for(int row = 0; row < 3; row++) {
-            for(int column = 0; column < 3; column++) {
-
-                Button[][] localButtons = buttons[row][column];
-
-                boards[row][column] = new Board(localButtons, localWinSound);
-            }
-        }
+    /**
+     * Registers a listener for all following changes. <br>
+     * The listener is expected to show a new game: every tile empty and every local board playable.
+     */
+    public void addListener(GameListener listener) {
+        listeners.add(listener);
     }
 
     /**
      * Processes a player's move on the global Ultimate Tic Tac Toe board. <br>
-     * Calls {@link Board#buttonPress} of the appropriate local {@link Board}. <br>
-     * After the move is recorded, it calculates which local board the next player
-     * is required to play in, based on the local coordinates of the current move.
-     * If the target board is already claimed or drawn, it enables all remaining
-     * unclaimed boards, granting the next player a "free move". Finally, it evaluates
-     * if this move resulted in a victory for the entire game.
+     * Applies the move to the headless {@link Position}, which holds the rules of the game, and notifies the
+     * {@link GameListener}s of the claimed tile, of the local board if its state changed, and of the local boards
+     * the next player may play in if they differ from the current ones: the board matching the local coordinates
+     * of the current move, or all remaining unclaimed boards if that board is already claimed or drawn,
+     * granting the next player a "free move".
      *
      * @param globalRow    The row index (0-2) of the local board within the macro-board.
      * @param globalColumn The column index (0-2) of the local board within the macro-board.
@@ -45,133 +52,129 @@ public class UltimateBoard {
      * {@link Player#NONE} if the game is still ongoing.
      */
     public Player buttonPress(int globalRow, int globalColumn, int localRow, int localColumn) {
-        Board affectedBoard = boards[globalRow][globalColumn];
-        affectedBoard.buttonPress(localRow, localColumn, currentTurn);
-
-        Board nextBoard = boards[localRow][localColumn];
-        if(nextBoard.getState() == BoardState.UNCLAIMED) {
-            this.disableAllBoards();
-            nextBoard.enableAllButtons();
-        } else {
-            this.enableAllBoards();
+        int cell = Position.cell(globalRow, globalColumn, localRow, localColumn);
+        int ply = position.ply();
+        // a different move discards the moves that could be redone
+        if (ply >= lineLength || line[ply] != cell) {
+            line[ply] = cell;
+            this.lineLength = ply + 1;
         }
-
-        return checkForWinner();
+        return play(cell);
     }
+
     /**
-     * Checks for global winners horizontally, vertically, and diagonally (top-right to bottom-left & top-left to bottom-right)
-     * @return {@link Player#RED} or {@link Player#BLUE} in case of there being a winner <br>
-     * {@link Player#NONE} if there is no winner
+     * Takes back the last move in constant time using {@link Position#unmakeMove()}. <br>
+     * Notifies the {@link GameListener}s of the emptied tile, of the local board if the move had decided it and
+     * of the local boards that become playable again. The player who made the move has the turn again.
+     * @return false if there is no move to take back
      */
-    private Player checkForWinner() {
-
-        for (int i = 0; i < 3; i++) {
-            // Horizontal check
-            if (isBoardClaimedBy(i, 0) != Player.NONE &&
-                    isBoardClaimedBy(i, 0) == isBoardClaimedBy(i, 1) &&
-                    isBoardClaimedBy(i, 0) == isBoardClaimedBy(i, 2)) {
-                return isBoardClaimedBy(i, 0);
-            }
-
-            // Vertical check
-            if (isBoardClaimedBy(0, i) != Player.NONE &&
-                    isBoardClaimedBy(0, i) == isBoardClaimedBy(1, i) &&
-                    isBoardClaimedBy(0, i) == isBoardClaimedBy(2, i)) {
-                return isBoardClaimedBy(0, i);
-            }
-        }
+    public boolean undo() {
+        if (position.ply() == 0) return false;
 
-        // Diagonal checks
-        if (isBoardClaimedBy(0, 0) != Player.NONE &&
-                isBoardClaimedBy(0, 0) == isBoardClaimedBy(1, 1) &&
-                isBoardClaimedBy(0, 0) == isBoardClaimedBy(2, 2)) {
-            return isBoardClaimedBy(0, 0);
-        }
+        int cell = position.moveAt(position.ply() - 1);
+        int board = Position.boardOf(cell);
+        BoardState previousState = position.boardState(board);
 
-        if (isBoardClaimedBy(0, 2) != Player.NONE &&
-                isBoardClaimedBy(0, 2) == isBoardClaimedBy(1, 1) &&
-                isBoardClaimedBy(0, 2) == isBoardClaimedBy(2, 0)) {
-            return isBoardClaimedBy(0, 2);
-        }
+        position.unmakeMove();
 
-        return Player.NONE;
-    }
+        for (GameListener listener : listeners) listener.cellChanged(cell, ButtonState.EMPTY);
 
-    private boolean canPlayerWinGlobal(Player player) {
-        BoardState opponentBoard = (player == Player.BLUE) ? BoardState.CLAIMED_RED : BoardState.CLAIMED_BLUE;
+        BoardState state = position.boardState(board);
+        if (state != previousState) {
+            for (GameListener listener : listeners) listener.boardStateChanged(board, state);
+        }
 
-        for (int i = 0; i < 3; i++) {
-            // Check Rows
-            if (!isBlocking(boards[i][0].getState(), opponentBoard) &&
-                    !isBlocking(boards[i][1].getState(), opponentBoard) &&
-                    !isBlocking(boards[i][2].getState(), opponentBoard)) return true;
+        updatePlayable(position.playableBoards());
+        this.currentTurn = position.sideToMove();
+        return true;
+    }
 
-            // Check Columns
-            if (!isBlocking(boards[0][i].getState(), opponentBoard) &&
-                    !isBlocking(boards[1][i].getState(), opponentBoard) &&
-                    !isBlocking(boards[2][i].getState(), opponentBoard)) return true;
-        }
+    /**
+     * Plays the next move that was taken back, like {@link #buttonPress(int, int, int, int)}
+     * @return the game winner as returned by {@link #buttonPress(int, int, int, int)}
+     * @throws IllegalStateException if there is no move to redo
+     */
+    public Player redo() {
+        if (!canRedo()) throw new IllegalStateException("No move to redo");
+        return play(line[position.ply()]);
+    }
 
-        // Check Diagonals
-        if (!isBlocking(boards[0][0].getState(), opponentBoard) &&
-                !isBlocking(boards[1][1].getState(), opponentBoard) &&
-                !isBlocking(boards[2][2].getState(), opponentBoard)) return true;
+    /**
+     * Takes back or redoes moves until the game is at the given ply. <br>
+     * Afterwards the player to move has the turn, or the player who made the last move if the game is over.
+     * @param ply number of moves played, between 0 and {@link #getLineLength()}
+     */
+    public void goToPly(int ply) {
+        if (ply < 0 || ply > lineLength) throw new IllegalArgumentException("Invalid ply " + ply);
+        while (position.ply() > ply) undo();
+        while (position.ply() < ply) play(line[position.ply()]);
+
+        Player toMove = position.sideToMove();
+        if (position.isGameOver()) this.currentTurn = toMove == Player.BLUE ? Player.RED : Player.BLUE;
+        else this.currentTurn = toMove;
+    }
 
-        if (!isBlocking(boards[0][2].getState(), opponentBoard) &&
-                !isBlocking(boards[1][1].getState(), opponentBoard) &&
-                !isBlocking(boards[2][0].getState(), opponentBoard)) return true;
+    public boolean canUndo() {
+        return position.ply() > 0;
+    }
 
-        return false;
+    public boolean canRedo() {
+        return position.ply() < lineLength;
     }
 
     /**
-     * A local board blocks a player's path if the opponent claimed it, OR if it resulted in a draw.
+     * @return number of moves of the game including the moves that can be redone
      */
-    private boolean isBlocking(BoardState state, BoardState opponentBoard) {
-        return state == opponentBoard || state == BoardState.DRAW;
+    public int getLineLength() {
+        return lineLength;
     }
 
     /**
-     * Predicts if the entire game has entered an unwinnable state for both players.
+     * Applies a move and notifies the listeners, see {@link #buttonPress(int, int, int, int)}
      */
-    protected boolean checkForDraw() {
-        return !canPlayerWinGlobal(Player.BLUE) && !canPlayerWinGlobal(Player.RED);
+    private Player play(int cell) {
+        int board = Position.boardOf(cell);
+        BoardState previousState = position.boardState(board);
+        Player mover = position.sideToMove();
+
+        position.makeMove(cell);
+
+        ButtonState tile = mover == Player.BLUE ? ButtonState.CLAIMED_BLUE : ButtonState.CLAIMED_RED;
+        for (GameListener listener : listeners) listener.cellChanged(cell, tile);
+
+        BoardState state = position.boardState(board);
+        if (state != previousState) {
+            for (GameListener listener : listeners) listener.boardStateChanged(board, state);
+        }
+
+        updatePlayable(position.playableBoards());
+
+        return position.winner();
     }
 
     /**
-     * Helper function used in {@link #checkForWinner()}
-     * @param r row
-     * @param c column
-     * @return claimee of the tile at (r, c)
+     * Predicts if the entire game has entered an unwinnable state for both players. <br>
+     * Constant-time read of the line masks {@link Position} maintains whenever a local board changes state.
      */
-    private Player isBoardClaimedBy(int r, int c) {
-        BoardState s = boards[r][c].getState();
-        if (s == BoardState.CLAIMED_RED) return Player.RED;
-        if (s == BoardState.CLAIMED_BLUE) return Player.BLUE;
-        return Player.NONE;
+    protected boolean checkForDraw() {
+        return position.isDraw();
     }
 
     /**
-     * Disables all local boards
+     * Disables all local boards until the next move, e.g. while the computer is thinking
      */
     protected void disableAllBoards() {
-        for(int row = 0; row < 3; row++) {
-            for(int column = 0; column < 3; column++) {
-                boards[row][column].disableAllButtons();
-            }
-        }
+        updatePlayable(0);
     }
 
     /**
-     * Enables all unclaimed local boards
+     * Notifies the listeners if the playable boards differ from the last notification
      */
-    private void enableAllBoards() {
-        for(int row = 0; row < 3; row++) {
-            for(int column = 0; column < 3; column++) {
-                if(boards[row][column].getState() != BoardState.UNCLAIMED) continue;
-                boards[row][column].enableAllButtons();
-            }
-        }
+    private void updatePlayable(int boards) {
+        if (boards == playable) return;
+        int previous = playable;
+        this.playable = boards;
+        for (GameListener listener : listeners) listener.playableChanged(previous, boards);
     }
 
     /**
@@ -185,4 +188,11 @@ public class UltimateBoard {
     protected Player getCurrentPlayer() {
         return currentTurn;
     }
-}
\ No newline at end of file
+
+    /**
+     * @return the headless {@link Position} backing this board
+     */
+    public Position getPosition() {
+        return position;
+    }
+}
@@ -0,0 +1,287 @@
+package ultimate.ttt.ai;
+
+import ultimate.ttt.Player;
+import ultimate.ttt.engine.Lines;
+import ultimate.ttt.engine.Position;
+import ultimate.ttt.engine.Symmetry;
+
+import java.util.Arrays;
+
+/**
+ * Deterministic negamax opponent with alpha-beta pruning. <br>
+ * The search deepens iteratively until the depth limit or the time budget is reached and plays the best move of
+ * the last completed iteration. Positions are cached in a {@link TranspositionTable} keyed by
+ * {@link Position#canonicalHash()}, so rotated and mirrored positions share an entry; moves are ordered by the table
+ * move, two killer moves per ply and the history heuristic.
+ * With a depth limit and no time budget the same position always produces the same move.
+ */
+public class AlphaBetaBot implements Bot {
+
+    /**
+     * Score of a won position; wins found closer to the root score higher
+     */
+    public static final int WIN = 1_000_000;
+
+    private static final int MAX_PLY = Position.CELLS;
+    private static final int INFINITY = WIN + 1;
+
+    // number of nodes between two clock reads
+    private static final int CLOCK_INTERVAL = 1024;
+
+    // weight of a local board for the evaluation: center, corners, edges
+    private static final int[] BOARD_WEIGHT = {3, 2, 3, 2, 4, 2, 3, 2, 3};
+
+    private final int maxDepth;
+    private final long timeBudgetMillis;
+    private final TranspositionTable table;
+
+    private final Position position = new Position();
+    private final int[][] moves = new int[MAX_PLY + 1][Position.CELLS];
+    private final int[][] orderScores = new int[MAX_PLY + 1][Position.CELLS];
+    private final int[][] killers = new int[MAX_PLY + 1][2];
+    private final int[][] history = new int[2][Position.CELLS];
+
+    private long nodes;
+    private long deadline;
+    private boolean aborted;
+    private int rootBestMove;
+
+    private int lastDepth;
+    private int lastScore;
+    private long lastNodes;
+
+    /**
+     * @param maxDepth         maximum search depth in plies
+     * @param timeBudgetMillis maximum thinking time per move in milliseconds, 0 for no time limit
+     * @param tableMegabytes   size of the transposition table
+     */
+    public AlphaBetaBot(int maxDepth, long timeBudgetMillis, int tableMegabytes) {
+        if (maxDepth < 1) throw new IllegalArgumentException("The depth limit must be at least 1");
+        this.maxDepth = Math.min(maxDepth, MAX_PLY);
+        this.timeBudgetMillis = timeBudgetMillis;
+        this.table = new TranspositionTable(tableMegabytes);
+    }
+
+    /**
+     * Fixed-depth, reproducible search
+     * @param maxDepth search depth in plies
+     */
+    public AlphaBetaBot(int maxDepth) {
+        this(maxDepth, 0, 64);
+    }
+
+    @Override
+    public int chooseMove(Position start) {
+        if (start.isGameOver()) throw new IllegalStateException("The game is already over");
+
+        position.copyFrom(start);
+        for (int[] slots : killers) Arrays.fill(slots, -1);
+        for (int[] scores : history) Arrays.fill(scores, 0);
+        // keep results of earlier moves only when the search is time-limited and thus not reproducible anyway
+        if (timeBudgetMillis <= 0) table.clear();
+
+        long startNanos = System.nanoTime();
+        this.deadline = timeBudgetMillis > 0 ? startNanos + timeBudgetMillis * 1_000_000L : Long.MAX_VALUE;
+        this.aborted = false;
+        this.nodes = 0;
+        this.rootBestMove = -1;
+
+        int bestMove = -1;
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            int score = negamax(depth, -INFINITY, INFINITY, 0);
+            // an interrupted iteration is discarded, except when nothing else is available
+            if (aborted && bestMove != -1) break;
+
+            if (rootBestMove == -1) {
+                // interrupted before the first root move was searched
+                position.legalMoves(moves[0]);
+                rootBestMove = moves[0][0];
+            }
+            bestMove = rootBestMove;
+            lastDepth = depth;
+            lastScore = score;
+            if (aborted || Math.abs(score) > WIN - MAX_PLY) break;
+        }
+
+        this.lastNodes = nodes;
+        return bestMove;
+    }
+
+    /**
+     * @return depth of the last completed iteration
+     */
+    public int getLastDepth() {
+        return lastDepth;
+    }
+
+    /**
+     * @return score of the last completed iteration from the point of view of the player to move
+     */
+    public int getLastScore() {
+        return lastScore;
+    }
+
+    /**
+     * @return nodes visited during the last search
+     */
+    public long getLastNodes() {
+        return lastNodes;
+    }
+
+    private int negamax(int depth, int alpha, int beta, int ply) {
+        nodes++;
+        if (nodes % CLOCK_INTERVAL == 0 && System.nanoTime() >= deadline) aborted = true;
+        if (aborted) return 0;
+
+        // the previous mover won
+        if (position.winner() != Player.NONE) return -(WIN - ply);
+        if (position.isDraw()) return 0;
+        if (depth == 0) return evaluate(position);
+
+        // symmetric positions share an entry, its move is stored in the canonical orientation
+        long hash = position.canonicalHash();
+        int symmetry = position.canonicalSymmetry();
+        int tableMove = -1;
+        long entry = table.probe(hash);
+        if (entry != 0L) {
+            int stored = TranspositionTable.move(entry);
+            if (stored != -1) tableMove = Symmetry.cell(Symmetry.inverse(symmetry), stored);
+            if (ply > 0 && TranspositionTable.depth(entry) >= depth) {
+                int score = fromTable(TranspositionTable.score(entry), ply);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.EXACT
+                        || (bound == TranspositionTable.LOWER && score >= beta)
+                        || (bound == TranspositionTable.UPPER && score <= alpha)) {
+                    return score;
+                }
+            }
+        }
+
+        int[] candidates = moves[ply];
+        int[] scores = orderScores[ply];
+        int count = position.legalMoves(candidates);
+        scoreMoves(candidates, scores, count, tableMove, ply);
+
+        int alphaStart = alpha;
+        int best = -INFINITY;
+        int bestMove = candidates[0];
+        for (int i = 0; i < count; i++) {
+            int move = pickNext(candidates, scores, i, count);
+
+            position.makeMove(move);
+            int score = -negamax(depth - 1, -beta, -alpha, ply + 1);
+            position.unmakeMove();
+            if (aborted) return 0;
+
+            if (score > best) {
+                best = score;
+                bestMove = move;
+            }
+            if (score > alpha) alpha = score;
+            if (alpha >= beta) {
+                storeKiller(move, ply);
+                history[sideIndex()][move] += depth * depth;
+                break;
+            }
+        }
+
+        if (ply == 0) rootBestMove = bestMove;
+
+        int bound = best <= alphaStart ? TranspositionTable.UPPER
+                : best >= beta ? TranspositionTable.LOWER
+                : TranspositionTable.EXACT;
+        table.store(hash, toTable(best, ply), depth, bound, Symmetry.cell(symmetry, bestMove));
+        return best;
+    }
+
+    private void scoreMoves(int[] candidates, int[] scores, int count, int tableMove, int ply) {
+        int side = sideIndex();
+        for (int i = 0; i < count; i++) {
+            int move = candidates[i];
+            if (move == tableMove) scores[i] = Integer.MAX_VALUE;
+            else if (move == killers[ply][0]) scores[i] = Integer.MAX_VALUE - 1;
+            else if (move == killers[ply][1]) scores[i] = Integer.MAX_VALUE - 2;
+            else scores[i] = history[side][move];
+        }
+    }
+
+    /**
+     * Selection sort step: swaps the best scored remaining move to index {@code from} and returns it
+     */
+    private static int pickNext(int[] candidates, int[] scores, int from, int count) {
+        int best = from;
+        for (int i = from + 1; i < count; i++) {
+            if (scores[i] > scores[best]) best = i;
+        }
+        int move = candidates[best];
+        candidates[best] = candidates[from];
+        candidates[from] = move;
+        int score = scores[best];
+        scores[best] = scores[from];
+        scores[from] = score;
+        return move;
+    }
+
+    private void storeKiller(int move, int ply) {
+        if (killers[ply][0] == move) return;
+        killers[ply][1] = killers[ply][0];
+        killers[ply][0] = move;
+    }
+
+    private int sideIndex() {
+        return position.sideToMove() == Player.BLUE ? 0 : 1;
+    }
+
+    /**
+     * Win scores are stored relative to the stored node, so they stay correct when reached at another ply
+     */
+    private static int toTable(int score, int ply) {
+        if (score > WIN - MAX_PLY) return score + ply;
+        if (score < -WIN + MAX_PLY) return score - ply;
+        return score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        if (score > WIN - MAX_PLY) return score - ply;
+        if (score < -WIN + MAX_PLY) return score + ply;
+        return score;
+    }
+
+    /**
+     * Static evaluation from the point of view of the player to move. <br>
+     * Rewards claimed boards by their position, open macro lines with two claimed boards and,
+     * on undecided boards, open local lines with two tiles.
+     */
+    static int evaluate(Position position) {
+        int score = evaluateFor(position, Player.BLUE) - evaluateFor(position, Player.RED);
+        return position.sideToMove() == Player.BLUE ? score : -score;
+    }
+
+    private static int evaluateFor(Position position, Player player) {
+        Player opponent = player == Player.BLUE ? Player.RED : Player.BLUE;
+        int own = position.claimedBoards(player);
+        int blocked = position.claimedBoards(opponent) | position.drawnBoards();
+        int decided = own | blocked;
+
+        int score = 0;
+        for (int board = 0; board < 9; board++) {
+            if ((own & (1 << board)) != 0) {
+                score += 100 * BOARD_WEIGHT[board];
+            } else if ((decided & (1 << board)) == 0) {
+                score += 8 * BOARD_WEIGHT[board] * threats(position.localMask(player, board), position.localMask(opponent, board));
+            }
+        }
+        return score + 150 * threats(own, blocked);
+    }
+
+    /**
+     * @return number of lines holding two of the player's squares and no blocked square
+     */
+    private static int threats(int own, int blocked) {
+        int threats = 0;
+        for (int line : Lines.LINES) {
+            if ((line & blocked) == 0 && Integer.bitCount(line & own) == 2) threats++;
+        }
+        return threats;
+    }
+}
@@ -0,0 +1,22 @@
+package ultimate.ttt.ai;
+
+import ultimate.ttt.engine.Position;
+
+/**
+ * Intermediate result of analysing a position, see {@link MctsBot#analysis()}. <br>
+ * Scores are expected results from the point of view of the player to move: 1 win, 0.5 draw, 0 loss.
+ * @param playouts           playouts the result is based on
+ * @param score              expected result of the player to move
+ * @param principalVariation most visited line of play, starting with the best move
+ * @param cellScores         expected result of every move indexed by cell (see {@link Position}), NaN for cells
+ *                           that are not legal or not searched yet
+ */
+public record Analysis(long playouts, double score, int[] principalVariation, double[] cellScores) {
+
+    /**
+     * @return the best move found, or -1 if nothing was searched yet
+     */
+    public int bestMove() {
+        return principalVariation.length == 0 ? -1 : principalVariation[0];
+    }
+}
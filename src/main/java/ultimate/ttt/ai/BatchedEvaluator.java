@@ -0,0 +1,143 @@
+package ultimate.ttt.ai;
+
+import ultimate.ttt.engine.Position;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Collects the evaluations requested by concurrent search threads and runs them through the
+ * {@link NeuralNetwork} in a single forward pass. <br>
+ * A thread adds its position to the open batch and waits. The batch is run by the thread that fills it, or by
+ * the first waiting thread whose wait time runs out, so no extra inference thread is needed and a lone
+ * search thread is only delayed by the wait time. With as many search threads as the batch size, batches
+ * fill up without waiting. If the forward pass fails, every thread of the batch gets the failure.
+ */
+public class BatchedEvaluator implements Evaluator {
+
+    private final NeuralNetwork network;
+    private final int maxBatch;
+    private final long maxWaitNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition finished = lock.newCondition();
+    private Batch open;
+
+    private long batches;
+    private long evaluations;
+
+    /**
+     * @param maxBatch      positions per forward pass, usually the number of search threads
+     * @param maxWaitMicros longest time a position waits for the batch to fill
+     */
+    public BatchedEvaluator(NeuralNetwork network, int maxBatch, long maxWaitMicros) {
+        if (maxBatch < 1) throw new IllegalArgumentException("Batch size must be positive");
+        this.network = network;
+        this.maxBatch = maxBatch;
+        this.maxWaitNanos = TimeUnit.MICROSECONDS.toNanos(maxWaitMicros);
+        this.open = new Batch(maxBatch);
+    }
+
+    @Override
+    public float evaluate(Position position, float[] policy) {
+        Batch batch;
+        int slot;
+        boolean run = false;
+        boolean interrupted = false;
+
+        lock.lock();
+        try {
+            batch = open;
+            slot = batch.count++;
+            NeuralNetwork.encode(position, batch.inputs, slot * NeuralNetwork.INPUTS);
+            if (batch.count == maxBatch) run = take(batch);
+
+            long deadline = System.nanoTime() + maxWaitNanos;
+            while (!run && !batch.done) {
+                long left = deadline - System.nanoTime();
+                if (batch.running) {
+                    // another thread evaluates the batch
+                    left = Long.MAX_VALUE;
+                } else if (left <= 0) {
+                    run = take(batch);
+                    break;
+                }
+                try {
+                    finished.awaitNanos(left);
+                } catch (InterruptedException e) {
+                    // the position is part of the batch, so the wait goes on
+                    interrupted = true;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (run) {
+            try {
+                network.forward(batch.inputs, batch.count, batch.values, batch.logits);
+            } catch (RuntimeException | Error e) {
+                batch.failure = e;
+            } finally {
+                lock.lock();
+                try {
+                    batch.done = true;
+                    this.batches++;
+                    this.evaluations += batch.count;
+                    finished.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+        // written before done was set under the lock, so every thread of the batch sees it
+        if (batch.failure != null) throw new IllegalStateException("Batched evaluation failed", batch.failure);
+
+        NeuralNetwork.policy(batch.logits, slot * Position.CELLS, position, policy);
+        return batch.values[slot];
+    }
+
+    /**
+     * Closes the batch to new positions, called with the lock held
+     * @return true
+     */
+    private boolean take(Batch batch) {
+        batch.running = true;
+        if (open == batch) this.open = new Batch(maxBatch);
+        return true;
+    }
+
+    /**
+     * @return average number of positions per forward pass so far
+     */
+    public double getAverageBatchSize() {
+        lock.lock();
+        try {
+            return batches == 0 ? 0.0 : (double) evaluations / batches;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Positions of one forward pass and their results
+     */
+    private static final class Batch {
+        private final float[] inputs;
+        private final float[] values;
+        private final float[] logits;
+        private int count;
+        private boolean running;
+        private boolean done;
+        // exception of the forward pass, null if it succeeded
+        private Throwable failure;
+
+        private Batch(int size) {
+            this.inputs = new float[size * NeuralNetwork.INPUTS];
+            this.values = new float[size];
+            this.logits = new float[size * Position.CELLS];
+        }
+    }
+}
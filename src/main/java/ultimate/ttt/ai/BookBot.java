@@ -0,0 +1,37 @@
+package ultimate.ttt.ai;
+
+import ultimate.ttt.book.OpeningBook;
+import ultimate.ttt.engine.Position;
+
+/**
+ * Plays book moves in the opening and leaves every other position to another bot
+ */
+public class BookBot implements Bot {
+
+    private final OpeningBook book;
+    private final Bot fallback;
+    private final int maxPlies;
+    private final int minGames;
+
+    /**
+     * @param book     opening book, may be shared with other bots
+     * @param fallback bot used once the position is out of book
+     * @param maxPlies the book is only consulted before this ply
+     * @param minGames minimum number of games a book move must have been played in
+     */
+    public BookBot(OpeningBook book, Bot fallback, int maxPlies, int minGames) {
+        this.book = book;
+        this.fallback = fallback;
+        this.maxPlies = maxPlies;
+        this.minGames = minGames;
+    }
+
+    @Override
+    public int chooseMove(Position position) {
+        if (position.ply() < maxPlies) {
+            int move = book.bestMove(position, minGames);
+            if (move != -1) return move;
+        }
+        return fallback.chooseMove(position);
+    }
+}
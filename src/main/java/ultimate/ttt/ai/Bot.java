@@ -0,0 +1,16 @@
+package ultimate.ttt.ai;
+
+import ultimate.ttt.engine.Position;
+
+/**
+ * Computer opponent choosing moves on a headless {@link Position}
+ */
+public interface Bot {
+
+    /**
+     * Chooses a move for the player to move. The given position is left unchanged.
+     * @param position position that is not over yet
+     * @return cell index 0-80 of a legal move
+     */
+    int chooseMove(Position position);
+}
@@ -0,0 +1,139 @@
+package ultimate.ttt.ai;
+
+import java.io.IOException;
+
+/**
+ * Creates bots from short text specifications, used by the command-line tools. <br>
+ * Supported specifications:
+ * <ul>
+ *     <li>{@code random}</li>
+ *     <li>{@code mcts:<playouts>} - {@link MctsBot} with a playout budget per move</li>
+ *     <li>{@code mcts-ms:<milliseconds>} - {@link MctsBot} with a time budget per move</li>
+ *     <li>{@code alphabeta:<depth>} - {@link AlphaBetaBot} with a fixed depth</li>
+ *     <li>{@code alphabeta-ms:<milliseconds>} - {@link AlphaBetaBot} with a time budget per move</li>
+ *     <li>{@code puct:<playouts>} - {@link PuctBot} with root noise, evaluating leaves with random playouts</li>
+ *     <li>{@code nn:<evaluations>} - {@link PuctBot} with root noise, evaluating leaves with the network in
+ *     {@link NeuralNetwork#DEFAULT_FILE}</li>
+ *     <li>{@code nn-ms:<milliseconds>} - the same with a time budget per move</li>
+ *     <li>{@code pmcts:<playouts>:<threads>} - {@link ParallelMctsBot} with a playout budget per move and thread</li>
+ *     <li>{@code pmcts-ms:<milliseconds>:<threads>} - {@link ParallelMctsBot} with a time budget per move</li>
+ *     <li>{@code pnn:<evaluations>:<threads>} - {@link ParallelMctsBot} running {@link PuctBot}s with root noise,
+ *     whose leaves are evaluated together by a {@link BatchedEvaluator} over the default network</li>
+ *     <li>{@code pnn-ms:<milliseconds>:<threads>} - the same with a time budget per move</li>
+ * </ul>
+ * The thread count of the parallel bots may be left out, they then use one thread per available processor.
+ * Bots with threads of their own have to be released with {@link #close(Bot)}.
+ */
+public final class Bots {
+
+    private static final int TABLE_MEGABYTES = 4;
+    // longest wait of a pnn thread for the other threads to fill the batch
+    private static final long BATCH_WAIT_MICROS = 500;
+
+    // loaded by the first nn bot and shared by all of them, the network is thread-safe
+    private static NeuralNetwork network;
+
+    private Bots() {
+    }
+
+    /**
+     * @param spec bot specification, see class comment
+     * @param seed seed for bots using random numbers
+     * @return a new bot instance
+     * @throws IllegalArgumentException if the specification is not understood
+     */
+    public static Bot create(String spec, long seed) {
+        String[] parts = spec.split(":", -1);
+        if (parts.length > 3) throw new IllegalArgumentException("Invalid bot specification: " + spec);
+        String name = parts[0];
+        long value = parts.length > 1 ? parsePositive(parts[1], spec) : 0;
+        int threads = parts.length > 2 ? (int) parsePositive(parts[2], spec) : Runtime.getRuntime().availableProcessors();
+        if (parts.length > 2 && !name.startsWith("pmcts") && !name.startsWith("pnn")) {
+            throw new IllegalArgumentException("Only parallel bots take a thread count: " + spec);
+        }
+
+        switch (name) {
+            case "random":
+                return new RandomBot(seed);
+            case "mcts":
+                return new MctsBot(0, orDefault(value, 10_000), seed);
+            case "mcts-ms":
+                return new MctsBot(orDefault(value, 100), 0, seed);
+            case "alphabeta":
+                return new AlphaBetaBot((int) orDefault(value, 6), 0, TABLE_MEGABYTES);
+            case "alphabeta-ms":
+                return new AlphaBetaBot(Integer.MAX_VALUE, orDefault(value, 100), TABLE_MEGABYTES);
+            case "puct":
+                // the root noise must not repeat the random numbers of the playouts
+                return new PuctBot(new PlayoutEvaluator(seed), 0, orDefault(value, 10_000), ~seed);
+            case "nn":
+                return new PuctBot(defaultNetwork(), 0, orDefault(value, 800), seed);
+            case "nn-ms":
+                return new PuctBot(defaultNetwork(), orDefault(value, 100), 0, seed);
+            case "pmcts":
+                return new ParallelMctsBot(threads, 0, orDefault(value, 10_000), seed);
+            case "pmcts-ms":
+                return new ParallelMctsBot(threads, orDefault(value, 100), 0, seed);
+            case "pnn":
+                return new ParallelMctsBot(threads, batchedNetwork(threads), 0, orDefault(value, 800), seed);
+            case "pnn-ms":
+                return new ParallelMctsBot(threads, batchedNetwork(threads), orDefault(value, 100), 0, seed);
+            default:
+                throw new IllegalArgumentException("Unknown bot: " + spec);
+        }
+    }
+
+    /**
+     * Gives a bot without an explicit budget the time budget of a time control
+     * @param spec   bot specification, see class comment
+     * @param millis time per move
+     * @return the time-budgeted specification, or the given one if it already has a budget or no time variant
+     */
+    public static String withTimeBudget(String spec, long millis) {
+        return switch (spec) {
+            case "mcts" -> "mcts-ms:" + millis;
+            case "alphabeta" -> "alphabeta-ms:" + millis;
+            case "nn" -> "nn-ms:" + millis;
+            case "pmcts" -> "pmcts-ms:" + millis;
+            case "pnn" -> "pnn-ms:" + millis;
+            default -> spec;
+        };
+    }
+
+    /**
+     * Stops the threads of a bot created by {@link #create(String, long)}, if it has any
+     */
+    public static void close(Bot bot) {
+        if (bot instanceof ParallelMctsBot parallel) parallel.close();
+    }
+
+    private static BatchedEvaluator batchedNetwork(int threads) {
+        return new BatchedEvaluator(defaultNetwork(), threads, BATCH_WAIT_MICROS);
+    }
+
+    private static synchronized NeuralNetwork defaultNetwork() {
+        if (network == null) {
+            try {
+                network = NeuralNetwork.load(NeuralNetwork.DEFAULT_FILE);
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Could not load network " + NeuralNetwork.DEFAULT_FILE + ": " + e.getMessage(), e);
+            }
+        }
+        return network;
+    }
+
+    private static long parsePositive(String number, String spec) {
+        long value;
+        try {
+            value = Long.parseLong(number);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number in bot specification: " + spec, e);
+        }
+        if (value <= 0) throw new IllegalArgumentException("Bot budget must be positive: " + spec);
+        return value;
+    }
+
+    private static long orDefault(long value, long fallback) {
+        return value > 0 ? value : fallback;
+    }
+}
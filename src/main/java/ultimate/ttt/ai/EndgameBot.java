@@ -0,0 +1,33 @@
+package ultimate.ttt.ai;
+
+import ultimate.ttt.engine.Position;
+
+/**
+ * Plays late positions perfectly with an {@link EndgameSolver} and leaves earlier ones to another bot
+ */
+public class EndgameBot implements Bot {
+
+    private final EndgameSolver solver;
+    private final Bot fallback;
+    private final int maxOpenCells;
+
+    /**
+     * @param solver       exact solver
+     * @param fallback     bot used for earlier positions and when the solver runs out of budget
+     * @param maxOpenCells the solver is used once at most this many cells are left to play (see {@link Position#openCells()})
+     */
+    public EndgameBot(EndgameSolver solver, Bot fallback, int maxOpenCells) {
+        this.solver = solver;
+        this.fallback = fallback;
+        this.maxOpenCells = maxOpenCells;
+    }
+
+    @Override
+    public int chooseMove(Position position) {
+        if (position.openCells() <= maxOpenCells) {
+            int move = solver.bestMove(position);
+            if (move != -1) return move;
+        }
+        return fallback.chooseMove(position);
+    }
+}
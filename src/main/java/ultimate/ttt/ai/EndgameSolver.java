@@ -0,0 +1,133 @@
+package ultimate.ttt.ai;
+
+import ultimate.ttt.Player;
+import ultimate.ttt.book.Tablebase;
+import ultimate.ttt.engine.Position;
+
+/**
+ * Exact solver for late positions. <br>
+ * A negamax search over the game-theoretic values win (1), draw (0) and loss (-1) for the player to move.
+ * A branch stops as soon as a winning move is found, so every returned value is exact and can be cached:
+ * in a private {@link TranspositionTable} during the search, and in a shared {@link Tablebase} for the solved
+ * root position and its children. The search gives up when its node budget is used up.
+ */
+public class EndgameSolver {
+
+    public static final int WIN = 1;
+    public static final int DRAW = 0;
+    public static final int LOSS = -1;
+
+    private static final int UNSOLVED = Integer.MIN_VALUE;
+
+    private final Tablebase tablebase;
+    private final long nodeBudget;
+    private final TranspositionTable cache;
+
+    private final Position position = new Position();
+    private final int[][] moves = new int[Position.CELLS + 1][Position.CELLS];
+
+    private long nodes;
+    private int lastValue;
+
+    /**
+     * @param tablebase  persistent store of solved positions, null to keep results in memory only
+     * @param nodeBudget maximum number of nodes per call of {@link #bestMove(Position)}
+     * @param cacheMegabytes size of the in-memory cache, which is kept between calls
+     */
+    public EndgameSolver(Tablebase tablebase, long nodeBudget, int cacheMegabytes) {
+        this.tablebase = tablebase;
+        this.nodeBudget = nodeBudget;
+        this.cache = new TranspositionTable(cacheMegabytes);
+    }
+
+    /**
+     * Solves the position exactly
+     * @return a move achieving the best value (the quickest to find, not the shortest win), -1 if the node
+     * budget was used up before the position was solved
+     */
+    public int bestMove(Position start) {
+        if (start.isGameOver()) throw new IllegalStateException("The game is already over");
+        position.copyFrom(start);
+        nodes = 0;
+
+        int count = position.legalMoves(moves[0]);
+        int bestMove = -1;
+        int bestValue = UNSOLVED;
+        for (int i = 0; i < count; i++) {
+            int move = moves[0][i];
+            position.makeMove(move);
+            int childValue = solve(1);
+            if (childValue != UNSOLVED && tablebase != null) tablebase.put(position.canonicalHash(), childValue);
+            position.unmakeMove();
+
+            if (childValue == UNSOLVED) return -1;
+            if (-childValue > bestValue) {
+                bestValue = -childValue;
+                bestMove = move;
+                if (bestValue == WIN) break;
+            }
+        }
+
+        if (tablebase != null) tablebase.put(position.canonicalHash(), bestValue);
+        this.lastValue = bestValue;
+        return bestMove;
+    }
+
+    /**
+     * Forgets the positions solved so far in the in-memory cache, the tablebase is kept
+     */
+    public void clearCache() {
+        cache.clear();
+    }
+
+    /**
+     * @return value of the last solved position for the player to move: {@link #WIN}, {@link #DRAW} or {@link #LOSS}
+     */
+    public int getLastValue() {
+        return lastValue;
+    }
+
+    /**
+     * @return nodes visited during the last call of {@link #bestMove(Position)}
+     */
+    public long getLastNodes() {
+        return nodes;
+    }
+
+    /**
+     * @return exact value for the player to move, {@link #UNSOLVED} if the budget ran out
+     */
+    private int solve(int ply) {
+        // the previous mover won
+        if (position.winner() != Player.NONE) return LOSS;
+        if (position.isDraw()) return DRAW;
+        if (++nodes > nodeBudget) return UNSOLVED;
+
+        // values do not change under symmetry
+        long hash = position.canonicalHash();
+        long entry = cache.probe(hash);
+        if (entry != 0L) return TranspositionTable.score(entry);
+        if (tablebase != null) {
+            int stored = tablebase.get(hash);
+            if (stored != Tablebase.UNKNOWN) return stored;
+        }
+
+        int[] candidates = moves[ply];
+        int count = position.legalMoves(candidates);
+        int best = LOSS;
+        for (int i = 0; i < count; i++) {
+            position.makeMove(candidates[i]);
+            int value = solve(ply + 1);
+            position.unmakeMove();
+
+            if (value == UNSOLVED) return UNSOLVED;
+            if (-value > best) {
+                best = -value;
+                if (best == WIN) break;
+            }
+        }
+
+        cache.store(hash, best, 0, TranspositionTable.EXACT, -1);
+        return best;
+    }
+}
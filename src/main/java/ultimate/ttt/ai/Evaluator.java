@@ -0,0 +1,18 @@
+package ultimate.ttt.ai;
+
+import ultimate.ttt.engine.Position;
+
+/**
+ * Judges the leaves of a {@link PuctBot} search: how good the position is for the player to move and which
+ * moves look promising. Implementations used by several search threads must be thread-safe.
+ */
+public interface Evaluator {
+
+    /**
+     * @param position position that is not over yet, left unchanged
+     * @param policy   receives a prior probability for every cell (see {@link Position}), only the entries of
+     *                 legal moves are read
+     * @return expected result for the player to move, between -1 (loss) and 1 (win)
+     */
+    float evaluate(Position position, float[] policy);
+}
@@ -0,0 +1,337 @@
+package ultimate.ttt.ai;
+
+import ultimate.ttt.Player;
+import ultimate.ttt.engine.Position;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Monte Carlo Tree Search (UCT) opponent. <br>
+ * Every iteration descends the tree using the UCB1 formula, expands one untried move and finishes the game
+ * with uniformly random moves. The search stops when either the time or the playout budget is used up, and the
+ * most visited move is played. The subtree of the position that is reached after the chosen move and the
+ * opponent's reply is kept for the next call of {@link #chooseMove(Position)}.
+ */
+public class MctsBot implements Bot, TreeSearch {
+
+    private static final double EXPLORATION = Math.sqrt(2.0);
+
+    // number of iterations between two clock reads
+    private static final int CLOCK_INTERVAL = 64;
+
+    private static final int MAX_VARIATION = 12;
+
+    private final long timeBudgetMillis;
+    private final long playoutBudget;
+    private final SplittableRandom random;
+
+    private final Position rootPosition = new Position();
+    private final Position scratch = new Position();
+    private final int[] moveBuffer = new int[Position.CELLS];
+    private final Node[] path = new Node[Position.CELLS + 1];
+
+    private Node root;
+
+    private long lastPlayouts;
+    private long lastElapsedNanos;
+
+    /**
+     * @param timeBudgetMillis maximum thinking time per move in milliseconds, 0 for no time limit
+     * @param playoutBudget    maximum number of playouts per move, 0 for no playout limit
+     * @param seed             seed of the random playouts
+     */
+    public MctsBot(long timeBudgetMillis, long playoutBudget, long seed) {
+        this(timeBudgetMillis, playoutBudget, new SplittableRandom(seed));
+        if (timeBudgetMillis <= 0 && playoutBudget <= 0) {
+            throw new IllegalArgumentException("Either a time or a playout budget is required");
+        }
+    }
+
+    private MctsBot(long timeBudgetMillis, long playoutBudget, SplittableRandom random) {
+        this.timeBudgetMillis = timeBudgetMillis;
+        this.playoutBudget = playoutBudget;
+        this.random = random;
+    }
+
+    /**
+     * Creates a bot without a budget, which only searches when told to by {@link #ponder(Position, long)}
+     * @param seed seed of the random playouts
+     */
+    public static MctsBot forPondering(long seed) {
+        return new MctsBot(0, 0, new SplittableRandom(seed));
+    }
+
+    /**
+     * @param timeBudgetMillis thinking time per move in milliseconds
+     */
+    public MctsBot(long timeBudgetMillis) {
+        this(timeBudgetMillis, 0, System.nanoTime());
+    }
+
+    @Override
+    public int chooseMove(Position position) {
+        searchFrom(position);
+
+        Node best = mostVisitedChild(root);
+        // keep the chosen subtree, the opponent's reply is looked up in the next call
+        return best.move;
+    }
+
+    @Override
+    public void searchFrom(Position position) {
+        if (position.isGameOver()) throw new IllegalStateException("The game is already over");
+        if (timeBudgetMillis <= 0 && playoutBudget <= 0) throw new IllegalStateException("A pondering bot has no budget");
+
+        advanceRoot(position);
+        search();
+    }
+
+    @Override
+    public void addRootVisits(long[] visits) {
+        for (int i = 0; i < root.childCount; i++) {
+            Node child = root.children[i];
+            visits[child.move] += child.visits;
+        }
+    }
+
+    /**
+     * Continues searching the given position for a number of playouts, without a time limit. <br>
+     * The tree is kept between calls, so calling this repeatedly on the same position refines
+     * {@link #analysis()}, and the subtree of a position reached by further moves is reused.
+     * @param position position that is not over yet
+     */
+    public void ponder(Position position, long playouts) {
+        if (position.isGameOver()) throw new IllegalStateException("The game is already over");
+
+        advanceRoot(position);
+        for (long i = 0; i < playouts; i++) iterate();
+    }
+
+    /**
+     * @return playouts through the current root, about the number of nodes in the tree as every playout adds at
+     * most one
+     */
+    public long getRootVisits() {
+        return root == null ? 0 : root.visits;
+    }
+
+    /**
+     * @return the result of the searches of the current root position so far
+     */
+    public Analysis analysis() {
+        double[] cellScores = new double[Position.CELLS];
+        Arrays.fill(cellScores, Double.NaN);
+        long visits = 0;
+        double reward = 0;
+        for (int i = 0; i < root.childCount; i++) {
+            Node child = root.children[i];
+            if (child.visits == 0) continue;
+            cellScores[child.move] = child.reward / child.visits;
+            visits += child.visits;
+            reward += child.reward;
+        }
+
+        int[] variation = new int[MAX_VARIATION];
+        int length = 0;
+        for (Node node = root; length < MAX_VARIATION && node.childCount > 0; ) {
+            node = mostVisitedChild(node);
+            if (node.visits == 0) break;
+            variation[length++] = node.move;
+        }
+
+        return new Analysis(visits, visits == 0 ? 0.5 : reward / visits, Arrays.copyOf(variation, length), cellScores);
+    }
+
+    /**
+     * @return number of playouts of the last search
+     */
+    @Override
+    public long getLastPlayouts() {
+        return lastPlayouts;
+    }
+
+    /**
+     * @return playouts per second of the last search
+     */
+    @Override
+    public double getLastPlayoutsPerSecond() {
+        return lastElapsedNanos == 0 ? 0.0 : lastPlayouts * 1e9 / lastElapsedNanos;
+    }
+
+    /**
+     * Runs iterations on {@link #root} until the budget is used up
+     */
+    private void search() {
+        long start = System.nanoTime();
+        long deadline = timeBudgetMillis > 0 ? start + timeBudgetMillis * 1_000_000L : Long.MAX_VALUE;
+        long limit = playoutBudget > 0 ? playoutBudget : Long.MAX_VALUE;
+
+        long playouts = 0;
+        while (playouts < limit) {
+            iterate();
+            playouts++;
+            if (playouts % CLOCK_INTERVAL == 0 && System.nanoTime() >= deadline) break;
+        }
+
+        this.lastPlayouts = playouts;
+        this.lastElapsedNanos = System.nanoTime() - start;
+    }
+
+    /**
+     * One selection, expansion, simulation and backpropagation step
+     */
+    private void iterate() {
+        Position position = scratch;
+        position.copyFrom(rootPosition);
+
+        Node node = root;
+        int depth = 0;
+        path[depth++] = node;
+
+        // selection
+        while (node.isExpanded(position, moveBuffer) && node.childCount > 0 && !position.isGameOver()) {
+            node = selectChild(node);
+            position.makeMove(node.move);
+            path[depth++] = node;
+        }
+
+        // expansion
+        if (!position.isGameOver()) {
+            node = node.expand(position, random, moveBuffer);
+            position.makeMove(node.move);
+            path[depth++] = node;
+        }
+
+        // simulation
+        while (!position.isGameOver()) {
+            position.makeMove(RandomBot.randomMove(position, random));
+        }
+
+        // backpropagation
+        Player winner = position.winner();
+        for (int i = 0; i < depth; i++) {
+            Node visited = path[i];
+            visited.visits++;
+            if (winner == Player.NONE) visited.reward += 0.5;
+            else if (winner == visited.mover) visited.reward += 1.0;
+        }
+    }
+
+    private static Node selectChild(Node parent) {
+        double logVisits = Math.log(parent.visits);
+        Node best = null;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < parent.childCount; i++) {
+            Node child = parent.children[i];
+            double score = child.reward / child.visits + EXPLORATION * Math.sqrt(logVisits / child.visits);
+            if (score > bestScore) {
+                bestScore = score;
+                best = child;
+            }
+        }
+        return best;
+    }
+
+    private static Node mostVisitedChild(Node parent) {
+        Node best = parent.children[0];
+        for (int i = 1; i < parent.childCount; i++) {
+            if (parent.children[i].visits > best.visits) best = parent.children[i];
+        }
+        return best;
+    }
+
+    /**
+     * Moves {@link #root} to the node of the given position if it lies in the current tree, otherwise starts a new tree
+     */
+    private void advanceRoot(Position position) {
+        if (root != null && extendsRoot(position)) {
+            for (int ply = rootPosition.ply(); ply < position.ply() && root != null; ply++) {
+                root = root.child(position.moveAt(ply));
+            }
+        } else {
+            root = null;
+        }
+
+        rootPosition.copyFrom(position);
+        if (root == null) {
+            Player previous = position.sideToMove() == Player.BLUE ? Player.RED : Player.BLUE;
+            root = new Node(-1, previous);
+        }
+    }
+
+    /**
+     * @return true if the given position was reached by playing further moves from {@link #rootPosition}
+     */
+    private boolean extendsRoot(Position position) {
+        int rootPly = rootPosition.ply();
+        if (position.ply() < rootPly) return false;
+        for (int ply = 0; ply < rootPly; ply++) {
+            if (position.moveAt(ply) != rootPosition.moveAt(ply)) return false;
+        }
+        // both games must have been started by the same player
+        boolean sameSide = position.sideToMove() == rootPosition.sideToMove();
+        return sameSide == ((position.ply() - rootPly) % 2 == 0);
+    }
+
+    /**
+     * Search tree node, reached by {@link #move} of {@link #mover}
+     */
+    private static final class Node {
+        private final int move;
+        private final Player mover;
+
+        private int visits;
+        // sum of the playout results from the point of view of the mover: 1 win, 0.5 draw, 0 loss
+        private double reward;
+
+        private Node[] children;
+        private int childCount;
+        // null once every move has a child
+        private int[] untried;
+        private int untriedCount;
+
+        private Node(int move, Player mover) {
+            this.move = move;
+            this.mover = mover;
+        }
+
+        /**
+         * @return true if every legal move of the position has a child
+         */
+        private boolean isExpanded(Position position, int[] buffer) {
+            if (children == null) initMoves(position, buffer);
+            return untriedCount == 0;
+        }
+
+        /**
+         * Adds a child for a random untried move
+         */
+        private Node expand(Position position, SplittableRandom random, int[] buffer) {
+            if (children == null) initMoves(position, buffer);
+
+            int index = random.nextInt(untriedCount);
+            int move = untried[index];
+            untried[index] = untried[--untriedCount];
+            if (untriedCount == 0) this.untried = null;
+
+            Node child = new Node(move, position.sideToMove());
+            children[childCount++] = child;
+            return child;
+        }
+
+        private Node child(int move) {
+            for (int i = 0; i < childCount; i++) {
+                if (children[i].move == move) return children[i];
+            }
+            return null;
+        }
+
+        private void initMoves(Position position, int[] buffer) {
+            int count = position.legalMoves(buffer);
+            this.untried = Arrays.copyOf(buffer, count);
+            this.untriedCount = count;
+            this.children = new Node[count];
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package ultimate.ttt.ai;
+
+import ultimate.ttt.Player;
+import ultimate.ttt.engine.Position;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Small value and policy network evaluating positions on the CPU. <br>
+ * The input planes describe the position from the point of view of the player to move: its tiles (81), the
+ * opponent's tiles (81), its won boards (9), the opponent's won boards (9), drawn boards (9) and the boards it may
+ * play in (9), which encodes the forced board. Two fully connected ReLU layers of the same width feed a value head
+ * (tanh) and a policy head (one logit per cell, softmax over the legal moves). <br>
+ * All weights are primitive float arrays stored input-major, so every layer is a sequence of
+ * {@code out[0..n) += x * row[0..n)} loops over contiguous memory that the JIT compiles to SIMD instructions.
+ * Inputs that are zero, most of the board and about half of the ReLU outputs, are skipped. A batch is evaluated
+ * row by row of the weights, so each row is loaded once for all positions of the batch. <br>
+ * The file written by {@link #save(Path)} starts with the magic bytes {@code UTTN}, a version byte and 3 reserved
+ * bytes, followed by the hidden width (int) and the big-endian floats of w1, b1, w2, b2, value weights, value
+ * bias, policy weights and policy biases, every matrix indexed by input first. Instances are thread-safe.
+ */
+public class NeuralNetwork implements Evaluator {
+
+    /**
+     * Number of input planes
+     */
+    public static final int INPUTS = 2 * Position.CELLS + 4 * 9;
+
+    /**
+     * Network loaded by the {@code nn} bots of {@link Bots}
+     */
+    public static final Path DEFAULT_FILE = Path.of(System.getProperty("user.home"), ".ultimate-ttt", "network.uttn");
+
+    private static final byte[] MAGIC = {'U', 'T', 'T', 'N'};
+    private static final byte VERSION = 1;
+
+    private static final int OWN_TILES = 0;
+    private static final int OPPONENT_TILES = Position.CELLS;
+    private static final int OWN_BOARDS = 2 * Position.CELLS;
+    private static final int OPPONENT_BOARDS = OWN_BOARDS + 9;
+    private static final int DRAWN_BOARDS = OPPONENT_BOARDS + 9;
+    private static final int PLAYABLE_BOARDS = DRAWN_BOARDS + 9;
+
+    private final int hidden;
+    private final float[] w1;
+    private final float[] b1;
+    private final float[] w2;
+    private final float[] b2;
+    private final float[] valueWeights;
+    private final float[] valueBias = new float[1];
+    private final float[] policyWeights;
+    private final float[] policyBias;
+
+    // activations of both hidden layers for a whole batch, grown on demand
+    private final ThreadLocal<float[][]> workspace = ThreadLocal.withInitial(() -> new float[2][0]);
+
+    private NeuralNetwork(int hidden) {
+        if (hidden < 1) throw new IllegalArgumentException("Hidden width must be positive");
+        this.hidden = hidden;
+        this.w1 = new float[INPUTS * hidden];
+        this.b1 = new float[hidden];
+        this.w2 = new float[hidden * hidden];
+        this.b2 = new float[hidden];
+        this.valueWeights = new float[hidden];
+        this.policyWeights = new float[hidden * Position.CELLS];
+        this.policyBias = new float[Position.CELLS];
+    }
+
+    /**
+     * Creates an untrained network with He-initialised weights, a starting point for training and a stand-in
+     * for benchmarks
+     * @param hidden width of both hidden layers
+     */
+    public static NeuralNetwork random(int hidden, long seed) {
+        NeuralNetwork network = new NeuralNetwork(hidden);
+        SplittableRandom random = new SplittableRandom(seed);
+        initialize(network.w1, INPUTS, random);
+        initialize(network.w2, hidden, random);
+        initialize(network.valueWeights, hidden, random);
+        initialize(network.policyWeights, hidden, random);
+        return network;
+    }
+
+    private static void initialize(float[] weights, int inputs, SplittableRandom random) {
+        double scale = Math.sqrt(2.0 / inputs);
+        for (int i = 0; i < weights.length; i++) {
+            // sum of uniforms, close enough to a normal distribution for initialisation
+            double gaussian = random.nextDouble() + random.nextDouble() + random.nextDouble() - 1.5;
+            weights[i] = (float) (gaussian * 2 * scale);
+        }
+    }
+
+    /**
+     * @throws IOException if the file is not a network
+     */
+    public static NeuralNetwork load(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            byte[] header = new byte[8];
+            in.readFully(header);
+            for (int i = 0; i < MAGIC.length; i++) {
+                if (header[i] != MAGIC[i]) throw new IOException("Not a network: " + file);
+            }
+            if (header[4] != VERSION) throw new IOException("Unsupported network version " + header[4] + " in " + file);
+
+            NeuralNetwork network = new NeuralNetwork(in.readInt());
+            for (float[] parameters : network.parameters()) {
+                for (int i = 0; i < parameters.length; i++) parameters[i] = in.readFloat();
+            }
+            return network;
+        }
+    }
+
+    public void save(Path file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+            out.write(MAGIC);
+            out.write(new byte[] {VERSION, 0, 0, 0});
+            out.writeInt(hidden);
+            for (float[] parameters : parameters()) {
+                for (float parameter : parameters) out.writeFloat(parameter);
+            }
+        }
+    }
+
+    private float[][] parameters() {
+        return new float[][] {w1, b1, w2, b2, valueWeights, valueBias, policyWeights, policyBias};
+    }
+
+    /**
+     * @return width of the hidden layers
+     */
+    public int getHidden() {
+        return hidden;
+    }
+
+    @Override
+    public float evaluate(Position position, float[] policy) {
+        float[] input = new float[INPUTS];
+        float[] value = new float[1];
+        float[] logits = new float[Position.CELLS];
+        encode(position, input, 0);
+        forward(input, 1, value, logits);
+        policy(logits, 0, position, policy);
+        return value[0];
+    }
+
+    /**
+     * Evaluates a batch of encoded positions in one pass
+     * @param inputs planes of every position, {@link #INPUTS} floats each (see {@link #encode(Position, float[], int)})
+     * @param count  number of positions
+     * @param values receives the value of every position
+     * @param logits receives the policy logits of every position, {@link Position#CELLS} floats each
+     */
+    public void forward(float[] inputs, int count, float[] values, float[] logits) {
+        float[][] activations = workspace.get();
+        if (activations[0].length < count * hidden) {
+            activations[0] = new float[count * hidden];
+            activations[1] = new float[count * hidden];
+        }
+        float[] h1 = activations[0];
+        float[] h2 = activations[1];
+
+        layer(inputs, INPUTS, count, w1, b1, hidden, h1);
+        relu(h1, count * hidden);
+        layer(h1, hidden, count, w2, b2, hidden, h2);
+        relu(h2, count * hidden);
+        layer(h2, hidden, count, policyWeights, policyBias, Position.CELLS, logits);
+
+        for (int b = 0; b < count; b++) {
+            float sum = valueBias[0];
+            int offset = b * hidden;
+            for (int i = 0; i < hidden; i++) sum += h2[offset + i] * valueWeights[i];
+            values[b] = (float) Math.tanh(sum);
+        }
+    }
+
+    /**
+     * out = bias + in * weights for every position of the batch, reading each row of the weights once
+     */
+    private static void layer(float[] in, int inputs, int count, float[] weights, float[] bias, int outputs, float[] out) {
+        for (int b = 0; b < count; b++) System.arraycopy(bias, 0, out, b * outputs, outputs);
+        for (int i = 0; i < inputs; i++) {
+            int row = i * outputs;
+            for (int b = 0; b < count; b++) {
+                float x = in[b * inputs + i];
+                if (x == 0f) continue;
+                int target = b * outputs;
+                for (int o = 0; o < outputs; o++) out[target + o] += x * weights[row + o];
+            }
+        }
+    }
+
+    private static void relu(float[] values, int length) {
+        for (int i = 0; i < length; i++) values[i] = Math.max(values[i], 0f);
+    }
+
+    /**
+     * Writes the input planes of a position from the point of view of the player to move
+     * @param out    array receiving {@link #INPUTS} floats
+     * @param offset index of the first float
+     */
+    public static void encode(Position position, float[] out, int offset) {
+        Player own = position.sideToMove();
+        Player opponent = own == Player.BLUE ? Player.RED : Player.BLUE;
+        Arrays.fill(out, offset, offset + INPUTS, 0f);
+
+        for (int board = 0; board < 9; board++) {
+            setBits(out, offset + OWN_TILES + board * 9, position.localMask(own, board));
+            setBits(out, offset + OPPONENT_TILES + board * 9, position.localMask(opponent, board));
+        }
+        setBits(out, offset + OWN_BOARDS, position.claimedBoards(own));
+        setBits(out, offset + OPPONENT_BOARDS, position.claimedBoards(opponent));
+        setBits(out, offset + DRAWN_BOARDS, position.drawnBoards());
+        setBits(out, offset + PLAYABLE_BOARDS, position.playableBoards());
+    }
+
+    private static void setBits(float[] out, int offset, int mask) {
+        for (int rest = mask; rest != 0; rest &= rest - 1) out[offset + Integer.numberOfTrailingZeros(rest)] = 1f;
+    }
+
+    /**
+     * Turns policy logits into probabilities over the legal moves of the position
+     * @param logits logits of a batch, see {@link #forward(float[], int, float[], float[])}
+     * @param offset index of the position's first logit
+     * @param policy receives the probabilities, indexed by cell
+     */
+    public static void policy(float[] logits, int offset, Position position, float[] policy) {
+        float max = Float.NEGATIVE_INFINITY;
+        for (int boards = position.playableBoards(); boards != 0; boards &= boards - 1) {
+            int board = Integer.numberOfTrailingZeros(boards);
+            for (int empty = position.emptySquares(board); empty != 0; empty &= empty - 1) {
+                max = Math.max(max, logits[offset + board * 9 + Integer.numberOfTrailingZeros(empty)]);
+            }
+        }
+
+        float sum = 0f;
+        for (int boards = position.playableBoards(); boards != 0; boards &= boards - 1) {
+            int board = Integer.numberOfTrailingZeros(boards);
+            for (int empty = position.emptySquares(board); empty != 0; empty &= empty - 1) {
+                int cell = board * 9 + Integer.numberOfTrailingZeros(empty);
+                float p = (float) Math.exp(logits[offset + cell] - max);
+                policy[cell] = p;
+                sum += p;
+            }
+        }
+        for (int boards = position.playableBoards(); boards != 0; boards &= boards - 1) {
+            int board = Integer.numberOfTrailingZeros(boards);
+            for (int empty = position.emptySquares(board); empty != 0; empty &= empty - 1) {
+                policy[board * 9 + Integer.numberOfTrailingZeros(empty)] /= sum;
+            }
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package ultimate.ttt.ai;
+
+import ultimate.ttt.engine.Position;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Root-parallel Monte Carlo Tree Search. <br>
+ * Every thread runs an independent {@link MctsBot} or {@link PuctBot} with its own tree on the same position, so
+ * the threads never share mutable statistics. After the budget is used up the root visit counts of all trees are
+ * summed per move and the most visited move is played. Each worker keeps its own subtree between moves.
+ */
+public class ParallelMctsBot implements Bot, AutoCloseable {
+
+    private final TreeSearch[] workers;
+    private final ExecutorService executor;
+
+    private final long[] visits = new long[Position.CELLS];
+
+    private long lastPlayouts;
+    private long lastElapsedNanos;
+
+    /**
+     * @param threads          number of search threads
+     * @param timeBudgetMillis maximum thinking time per move in milliseconds, 0 for no time limit
+     * @param playoutBudget    maximum number of playouts per move and thread, 0 for no playout limit
+     * @param seed             base seed, each thread derives its own seed from it
+     */
+    public ParallelMctsBot(int threads, long timeBudgetMillis, long playoutBudget, long seed) {
+        if (threads < 1) throw new IllegalArgumentException("At least one thread is required");
+
+        this.workers = new MctsBot[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new MctsBot(timeBudgetMillis, playoutBudget, seed + i * 0x9E3779B97F4A7C15L);
+        }
+        this.executor = newExecutor(threads);
+    }
+
+    /**
+     * Runs a {@link PuctBot} on every thread, all asking the same evaluator. With a {@link BatchedEvaluator}
+     * whose batch size is the number of threads, the leaves of all trees are evaluated in shared forward passes.
+     * Every worker adds its own root noise, otherwise the trees would all be the same.
+     * @param threads          number of search threads
+     * @param evaluator        thread-safe evaluator
+     * @param timeBudgetMillis maximum thinking time per move in milliseconds, 0 for no time limit
+     * @param playoutBudget    maximum number of evaluations per move and thread, 0 for no limit
+     * @param seed             base seed, each thread derives the seed of its noise from it
+     */
+    public ParallelMctsBot(int threads, Evaluator evaluator, long timeBudgetMillis, long playoutBudget, long seed) {
+        if (threads < 1) throw new IllegalArgumentException("At least one thread is required");
+
+        this.workers = new PuctBot[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new PuctBot(evaluator, timeBudgetMillis, playoutBudget, seed + i * 0x9E3779B97F4A7C15L);
+        }
+        this.executor = newExecutor(threads);
+    }
+
+    private static ExecutorService newExecutor(int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "mcts-worker-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Uses one thread per available processor
+     * @param timeBudgetMillis thinking time per move in milliseconds
+     */
+    public ParallelMctsBot(long timeBudgetMillis) {
+        this(Runtime.getRuntime().availableProcessors(), timeBudgetMillis, 0, System.nanoTime());
+    }
+
+    @Override
+    public int chooseMove(Position position) {
+        if (position.isGameOver()) throw new IllegalStateException("The game is already over");
+
+        long start = System.nanoTime();
+
+        List<Callable<Void>> searches = new ArrayList<>(workers.length);
+        for (TreeSearch worker : workers) {
+            // every worker searches its own copy, Position is not thread-safe
+            Position copy = new Position();
+            copy.copyFrom(position);
+            searches.add(() -> {
+                worker.searchFrom(copy);
+                return null;
+            });
+        }
+
+        try {
+            for (Future<Void> search : executor.invokeAll(searches)) search.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Search was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Search failed", e.getCause());
+        }
+
+        this.lastElapsedNanos = System.nanoTime() - start;
+        this.lastPlayouts = 0;
+        Arrays.fill(visits, 0);
+        for (TreeSearch worker : workers) {
+            worker.addRootVisits(visits);
+            lastPlayouts += worker.getLastPlayouts();
+        }
+
+        int best = -1;
+        for (int cell = 0; cell < Position.CELLS; cell++) {
+            if (visits[cell] > 0 && (best == -1 || visits[cell] > visits[best])) best = cell;
+        }
+        return best;
+    }
+
+    /**
+     * @return number of search threads
+     */
+    public int getThreads() {
+        return workers.length;
+    }
+
+    /**
+     * @return playouts of all threads during the last search
+     */
+    public long getLastPlayouts() {
+        return lastPlayouts;
+    }
+
+    /**
+     * @return playouts per second of all threads combined during the last search
+     */
+    public double getLastPlayoutsPerSecond() {
+        return lastElapsedNanos == 0 ? 0.0 : lastPlayouts * 1e9 / lastElapsedNanos;
+    }
+
+    /**
+     * Stops the search threads
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
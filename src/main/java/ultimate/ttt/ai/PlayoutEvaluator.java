@@ -0,0 +1,36 @@
+package ultimate.ttt.ai;
+
+import ultimate.ttt.Player;
+import ultimate.ttt.engine.Position;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Evaluates a position with one random playout and gives every move the same prior, which turns
+ * {@link PuctBot} into a plain Monte Carlo search. Not thread-safe, every search thread needs its own instance.
+ */
+public class PlayoutEvaluator implements Evaluator {
+
+    private final SplittableRandom random;
+    private final Position scratch = new Position();
+
+    public PlayoutEvaluator(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    @Override
+    public float evaluate(Position position, float[] policy) {
+        Arrays.fill(policy, 1f);
+
+        Player mover = position.sideToMove();
+        scratch.copyFrom(position);
+        while (!scratch.isGameOver()) {
+            scratch.makeMove(RandomBot.randomMove(scratch, random));
+        }
+
+        Player winner = scratch.winner();
+        if (winner == Player.NONE) return 0f;
+        return winner == mover ? 1f : -1f;
+    }
+}
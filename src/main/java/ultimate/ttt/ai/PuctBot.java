@@ -0,0 +1,303 @@
+package ultimate.ttt.ai;
+
+import ultimate.ttt.Player;
+import ultimate.ttt.engine.Position;
+
+import java.util.SplittableRandom;
+
+/**
+ * Monte Carlo Tree Search guided by an {@link Evaluator}, as in AlphaZero. <br>
+ * Instead of finishing the game with random moves, every iteration asks the evaluator for the value of the new
+ * leaf and for move priors, which steer the selection through the PUCT formula
+ * {@code Q + c * P * sqrt(N) / (1 + n)}. With a {@link NeuralNetwork} an iteration costs more than a playout of
+ * {@link MctsBot}, but tells much more about the position. The most visited move is played and the subtree of the
+ * position after the opponent's reply is kept for the next call of {@link #chooseMove(Position)}. <br>
+ * A seeded bot mixes Dirichlet noise into the priors of every new root, as AlphaZero does in self-play, so
+ * searches with different seeds explore different moves.
+ */
+public class PuctBot implements Bot, TreeSearch {
+
+    private static final float EXPLORATION = 1.5f;
+    private static final double NOISE_ALPHA = 0.3;
+    private static final float NOISE_WEIGHT = 0.25f;
+
+    // number of iterations between two clock reads
+    private static final int CLOCK_INTERVAL = 16;
+
+    private final Evaluator evaluator;
+    private final long timeBudgetMillis;
+    private final long playoutBudget;
+    // null for a search without root noise
+    private final SplittableRandom random;
+
+    private final Position rootPosition = new Position();
+    private final Position scratch = new Position();
+    private final float[] policy = new float[Position.CELLS];
+    private final int[] moveBuffer = new int[Position.CELLS];
+    private final Node[] path = new Node[Position.CELLS + 1];
+    private final int[] edges = new int[Position.CELLS + 1];
+
+    private Node root;
+    private Node noisyRoot;
+    // value of the position expanded last, for the player to move in it
+    private float expandedValue;
+
+    private long lastPlayouts;
+    private long lastElapsedNanos;
+
+    /**
+     * @param evaluator        judges the leaves, shared with other searches only if it is thread-safe
+     * @param timeBudgetMillis maximum thinking time per move in milliseconds, 0 for no time limit
+     * @param playoutBudget    maximum number of evaluations per move, 0 for no limit
+     */
+    public PuctBot(Evaluator evaluator, long timeBudgetMillis, long playoutBudget) {
+        this(evaluator, timeBudgetMillis, playoutBudget, null);
+    }
+
+    /**
+     * Adds Dirichlet noise to the root priors
+     * @param evaluator        judges the leaves, shared with other searches only if it is thread-safe
+     * @param timeBudgetMillis maximum thinking time per move in milliseconds, 0 for no time limit
+     * @param playoutBudget    maximum number of evaluations per move, 0 for no limit
+     * @param seed             seed of the noise
+     */
+    public PuctBot(Evaluator evaluator, long timeBudgetMillis, long playoutBudget, long seed) {
+        this(evaluator, timeBudgetMillis, playoutBudget, new SplittableRandom(seed));
+    }
+
+    private PuctBot(Evaluator evaluator, long timeBudgetMillis, long playoutBudget, SplittableRandom random) {
+        if (timeBudgetMillis <= 0 && playoutBudget <= 0) {
+            throw new IllegalArgumentException("Either a time or a playout budget is required");
+        }
+        this.evaluator = evaluator;
+        this.timeBudgetMillis = timeBudgetMillis;
+        this.playoutBudget = playoutBudget;
+        this.random = random;
+    }
+
+    @Override
+    public int chooseMove(Position position) {
+        searchFrom(position);
+
+        int best = 0;
+        for (int i = 1; i < root.moves.length; i++) {
+            if (root.visits[i] > root.visits[best]) best = i;
+        }
+        return root.moves[best];
+    }
+
+    @Override
+    public void searchFrom(Position position) {
+        if (position.isGameOver()) throw new IllegalStateException("The game is already over");
+
+        advanceRoot(position);
+        if (random != null && root != noisyRoot) addRootNoise();
+        search();
+    }
+
+    @Override
+    public void addRootVisits(long[] visits) {
+        for (int i = 0; i < root.moves.length; i++) visits[root.moves[i]] += root.visits[i];
+    }
+
+    /**
+     * @return number of evaluations of the last search
+     */
+    @Override
+    public long getLastPlayouts() {
+        return lastPlayouts;
+    }
+
+    /**
+     * @return evaluations per second of the last search
+     */
+    @Override
+    public double getLastPlayoutsPerSecond() {
+        return lastElapsedNanos == 0 ? 0.0 : lastPlayouts * 1e9 / lastElapsedNanos;
+    }
+
+    private void search() {
+        long start = System.nanoTime();
+        long deadline = timeBudgetMillis > 0 ? start + timeBudgetMillis * 1_000_000L : Long.MAX_VALUE;
+        long limit = playoutBudget > 0 ? playoutBudget : Long.MAX_VALUE;
+
+        long playouts = 0;
+        while (playouts < limit) {
+            iterate();
+            playouts++;
+            if (playouts % CLOCK_INTERVAL == 0 && System.nanoTime() >= deadline) break;
+        }
+
+        this.lastPlayouts = playouts;
+        this.lastElapsedNanos = System.nanoTime() - start;
+    }
+
+    /**
+     * Descends to a new leaf, evaluates it and adds its value to every edge on the way
+     */
+    private void iterate() {
+        Position position = scratch;
+        position.copyFrom(rootPosition);
+
+        Node node = root;
+        int depth = 0;
+        float value;
+        while (true) {
+            int edge = select(node);
+            path[depth] = node;
+            edges[depth] = edge;
+            depth++;
+            position.makeMove(node.moves[edge]);
+
+            if (position.isGameOver()) {
+                // the player who just moved won, or nobody did
+                value = position.winner() == Player.NONE ? 0f : -1f;
+                break;
+            }
+            Node child = node.children[edge];
+            if (child == null) {
+                node.children[edge] = expand(position);
+                value = expandedValue;
+                break;
+            }
+            node = child;
+        }
+
+        // the value belongs to the player to move at the leaf, every edge is scored for the player choosing it
+        for (int i = depth - 1; i >= 0; i--) {
+            value = -value;
+            Node visited = path[i];
+            visited.visits[edges[i]]++;
+            visited.values[edges[i]] += value;
+            visited.totalVisits++;
+        }
+    }
+
+    private static int select(Node node) {
+        float scale = EXPLORATION * (float) Math.sqrt(node.totalVisits + 1);
+        int best = 0;
+        float bestScore = Float.NEGATIVE_INFINITY;
+        for (int i = 0; i < node.moves.length; i++) {
+            int visits = node.visits[i];
+            float q = visits == 0 ? 0f : node.values[i] / visits;
+            float score = q + scale * node.priors[i] / (1 + visits);
+            if (score > bestScore) {
+                bestScore = score;
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Creates the node of a position that is not over, with the evaluator's priors for its moves
+     */
+    private Node expand(Position position) {
+        int count = position.legalMoves(moveBuffer);
+        this.expandedValue = evaluator.evaluate(position, policy);
+
+        Node node = new Node(count);
+        float sum = 0f;
+        for (int i = 0; i < count; i++) {
+            node.moves[i] = moveBuffer[i];
+            node.priors[i] = Math.max(policy[moveBuffer[i]], 0f);
+            sum += node.priors[i];
+        }
+        for (int i = 0; i < count; i++) node.priors[i] = sum > 0f ? node.priors[i] / sum : 1f / count;
+        return node;
+    }
+
+    /**
+     * Mixes a sample of Dir(alpha) into the priors of the root, once per root
+     */
+    private void addRootNoise() {
+        int count = root.moves.length;
+        double sum = 0;
+        for (int i = 0; i < count; i++) {
+            policy[i] = (float) gamma(NOISE_ALPHA);
+            sum += policy[i];
+        }
+        if (sum > 0) {
+            for (int i = 0; i < count; i++) {
+                root.priors[i] = (1f - NOISE_WEIGHT) * root.priors[i] + NOISE_WEIGHT * (float) (policy[i] / sum);
+            }
+        }
+        this.noisyRoot = root;
+    }
+
+    /**
+     * @param alpha shape below 1
+     * @return a sample of the gamma distribution with scale 1 (Marsaglia and Tsang, boosted for shapes below 1)
+     */
+    private double gamma(double alpha) {
+        double d = alpha + 1 - 1.0 / 3;
+        double c = 1 / Math.sqrt(9 * d);
+        while (true) {
+            double x = random.nextGaussian();
+            double v = 1 + c * x;
+            if (v <= 0) continue;
+            v = v * v * v;
+            if (Math.log(random.nextDouble()) < 0.5 * x * x + d - d * v + d * Math.log(v)) {
+                return d * v * Math.pow(random.nextDouble(), 1 / alpha);
+            }
+        }
+    }
+
+    /**
+     * Moves {@link #root} to the node of the given position if it lies in the current tree, otherwise starts a new tree
+     */
+    private void advanceRoot(Position position) {
+        if (root != null && extendsRoot(position)) {
+            for (int ply = rootPosition.ply(); ply < position.ply() && root != null; ply++) {
+                root = root.child(position.moveAt(ply));
+            }
+        } else {
+            root = null;
+        }
+
+        rootPosition.copyFrom(position);
+        if (root == null) root = expand(rootPosition);
+    }
+
+    /**
+     * @return true if the given position was reached by playing further moves from {@link #rootPosition}
+     */
+    private boolean extendsRoot(Position position) {
+        int rootPly = rootPosition.ply();
+        if (position.ply() < rootPly) return false;
+        for (int ply = 0; ply < rootPly; ply++) {
+            if (position.moveAt(ply) != rootPosition.moveAt(ply)) return false;
+        }
+        // both games must have been started by the same player
+        boolean sameSide = position.sideToMove() == rootPosition.sideToMove();
+        return sameSide == ((position.ply() - rootPly) % 2 == 0);
+    }
+
+    /**
+     * Search tree node of a position that is not over. The statistics of a move are kept in the parent,
+     * from the point of view of the player choosing it.
+     */
+    private static final class Node {
+        private final int[] moves;
+        private final float[] priors;
+        private final int[] visits;
+        private final float[] values;
+        private final Node[] children;
+        private int totalVisits;
+
+        private Node(int count) {
+            this.moves = new int[count];
+            this.priors = new float[count];
+            this.visits = new int[count];
+            this.values = new float[count];
+            this.children = new Node[count];
+        }
+
+        private Node child(int move) {
+            for (int i = 0; i < moves.length; i++) {
+                if (moves[i] == move) return children[i];
+            }
+            return null;
+        }
+    }
+}
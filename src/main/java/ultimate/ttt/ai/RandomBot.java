@@ -0,0 +1,55 @@
+package ultimate.ttt.ai;
+
+import ultimate.ttt.engine.Position;
+
+import java.util.SplittableRandom;
+
+/**
+ * Opponent playing uniformly random legal moves, also used for the playouts of {@link MctsBot}
+ */
+public class RandomBot implements Bot {
+
+    private final SplittableRandom random;
+
+    public RandomBot(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    @Override
+    public int chooseMove(Position position) {
+        return randomMove(position, random);
+    }
+
+    /**
+     * Picks a uniformly distributed legal move without generating the move list
+     * @param position position that is not over yet
+     * @return cell index of the move
+     */
+    public static int randomMove(Position position, SplittableRandom random) {
+        int boards = position.playableBoards();
+        if ((boards & (boards - 1)) == 0) {
+            // single playable board, the common case
+            int board = Integer.numberOfTrailingZeros(boards);
+            int empty = position.emptySquares(board);
+            return board * 9 + nthSetBit(empty, random.nextInt(Integer.bitCount(empty)));
+        }
+
+        int total = 0;
+        for (int rest = boards; rest != 0; rest &= rest - 1) {
+            total += Integer.bitCount(position.emptySquares(Integer.numberOfTrailingZeros(rest)));
+        }
+        int index = random.nextInt(total);
+        for (int rest = boards; ; rest &= rest - 1) {
+            int board = Integer.numberOfTrailingZeros(rest);
+            int empty = position.emptySquares(board);
+            int count = Integer.bitCount(empty);
+            if (index < count) return board * 9 + nthSetBit(empty, index);
+            index -= count;
+        }
+    }
+
+    private static int nthSetBit(int mask, int n) {
+        for (int i = 0; i < n; i++) mask &= mask - 1;
+        return Integer.numberOfTrailingZeros(mask);
+    }
+}
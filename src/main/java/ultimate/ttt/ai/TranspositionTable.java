@@ -0,0 +1,84 @@
+package ultimate.ttt.ai;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size transposition table indexed by the Zobrist hash of a position. <br>
+ * Every slot holds two longs: the packed entry and the hash XORed with the entry. A read is only accepted if
+ * both longs belong together, so concurrent writers can share the table without locks; a torn write
+ * merely shows up as a miss.
+ */
+public final class TranspositionTable {
+
+    public static final int EXACT = 1;
+    public static final int LOWER = 2;
+    public static final int UPPER = 3;
+
+    private static final int SLOT_BYTES = 16;
+
+    private final long[] checks;
+    private final long[] entries;
+    private final int mask;
+
+    /**
+     * @param sizeMegabytes memory used by the table, rounded down to a power of two number of slots
+     */
+    public TranspositionTable(int sizeMegabytes) {
+        long slots = Math.max(1L, (long) sizeMegabytes * 1024 * 1024 / SLOT_BYTES);
+        int size = Integer.highestOneBit((int) Math.min(slots, 1 << 30));
+        this.checks = new long[size];
+        this.entries = new long[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * @return the packed entry stored for the hash, 0 if there is none
+     */
+    public long probe(long hash) {
+        int index = (int) hash & mask;
+        long entry = entries[index];
+        if ((checks[index] ^ entry) != hash) return 0L;
+        return entry;
+    }
+
+    /**
+     * Stores an entry, always replacing the previous occupant of the slot
+     * @param score score from the point of view of the player to move
+     * @param depth remaining search depth the score was computed with (0-255)
+     * @param bound {@link #EXACT}, {@link #LOWER} or {@link #UPPER}
+     * @param move  best move found, -1 if none
+     */
+    public void store(long hash, int score, int depth, int bound, int move) {
+        long entry = (score & 0xFFFFFFFFL)
+                | (long) (depth & 0xFF) << 32
+                | (long) bound << 40
+                | (long) ((move + 1) & 0xFF) << 48;
+        int index = (int) hash & mask;
+        entries[index] = entry;
+        checks[index] = hash ^ entry;
+    }
+
+    public void clear() {
+        Arrays.fill(checks, 0L);
+        Arrays.fill(entries, 0L);
+    }
+
+    public static int score(long entry) {
+        return (int) entry;
+    }
+
+    public static int depth(long entry) {
+        return (int) (entry >>> 32) & 0xFF;
+    }
+
+    public static int bound(long entry) {
+        return (int) (entry >>> 40) & 0x3;
+    }
+
+    /**
+     * @return the stored move, -1 if none
+     */
+    public static int move(long entry) {
+        return ((int) (entry >>> 48) & 0xFF) - 1;
+    }
+}
@@ -0,0 +1,31 @@
+package ultimate.ttt.ai;
+
+import ultimate.ttt.engine.Position;
+
+/**
+ * Search with its own tree whose root visit counts can be read, run by {@link ParallelMctsBot} on its threads
+ * and used as the move policy of self-play training data
+ */
+public interface TreeSearch {
+
+    /**
+     * Searches the given position until the budget is used up, without choosing a move
+     */
+    void searchFrom(Position position);
+
+    /**
+     * Adds the visit counts of the root's children to the given array
+     * @param visits array indexed by cell, {@link Position#CELLS} entries
+     */
+    void addRootVisits(long[] visits);
+
+    /**
+     * @return number of playouts of the last search
+     */
+    long getLastPlayouts();
+
+    /**
+     * @return playouts per second of the last search
+     */
+    double getLastPlayoutsPerSecond();
+}
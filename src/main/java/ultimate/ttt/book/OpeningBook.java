@@ -0,0 +1,131 @@
+package ultimate.ttt.book;
+
+import ultimate.ttt.engine.Position;
+import ultimate.ttt.engine.Symmetry;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read-only opening book, memory-mapped so opening it costs the same regardless of its size. <br>
+ * The file starts with a 16-byte header: the magic bytes {@code UTTB}, a version byte, 3 reserved bytes and the
+ * number of entries as a long. The entries follow, sorted by position hash and then move, each of them
+ * {@value #ENTRY_BYTES} bytes: position hash ({@link Position#canonicalHash()}, 8 bytes), move in the canonical
+ * orientation (1 byte, see {@link Position#canonicalSymmetry()}), games played with the move (4 bytes) and points
+ * scored by the player making it (4 bytes, 2 per win, 1 per draw). Symmetric positions thus share their entries.
+ * Lookups are binary searches on the mapped file. Instances are safe for concurrent readers.
+ */
+public class OpeningBook implements Closeable {
+
+    static final byte[] MAGIC = {'U', 'T', 'T', 'B'};
+    static final byte VERSION = 2;
+    static final int HEADER_BYTES = 16;
+    static final int ENTRY_BYTES = 17;
+
+    private final FileChannel channel;
+    private final ByteBuffer entries;
+    private final long count;
+
+    /**
+     * @throws IOException if the file cannot be read or is not an opening book
+     */
+    public OpeningBook(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        long size = channel.size();
+        if (size > Integer.MAX_VALUE) {
+            channel.close();
+            throw new IOException("Opening book larger than 2 GB: " + file);
+        }
+
+        ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        if (size < HEADER_BYTES || !hasMagic(buffer) || buffer.get(4) != VERSION) {
+            channel.close();
+            throw new IOException("Not an opening book: " + file);
+        }
+        this.count = buffer.getLong(8);
+        if (HEADER_BYTES + count * ENTRY_BYTES != size) {
+            channel.close();
+            throw new IOException("Truncated opening book: " + file);
+        }
+        this.entries = buffer.position(HEADER_BYTES).slice();
+    }
+
+    /**
+     * @return number of (position, move) entries
+     */
+    public long size() {
+        return count;
+    }
+
+    /**
+     * Chooses the book move of a position: the legal move played in the most games, ties broken by score
+     * @param minGames minimum number of games a move must have been played in
+     * @return cell index of the move, -1 if the position is not in the book
+     */
+    public int bestMove(Position position, int minGames) {
+        long hash = position.canonicalHash();
+        int toPosition = Symmetry.inverse(position.canonicalSymmetry());
+        int best = -1;
+        long bestGames = 0;
+        long bestPoints = 0;
+        for (int index = firstIndex(hash); index < count && hashAt(index) == hash; index++) {
+            int move = Symmetry.cell(toPosition, moveAt(index));
+            long games = gamesAt(index);
+            long points = pointsAt(index);
+            // a hash collision could point to an illegal move
+            if (games < minGames || !position.isLegal(move)) continue;
+            if (games > bestGames || (games == bestGames && points > bestPoints)) {
+                best = move;
+                bestGames = games;
+                bestPoints = points;
+            }
+        }
+        return best;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * @return index of the first entry with the given hash, or of the first larger one
+     */
+    private int firstIndex(long hash) {
+        int low = 0;
+        int high = (int) count;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (hashAt(middle) < hash) low = middle + 1;
+            else high = middle;
+        }
+        return low;
+    }
+
+    private long hashAt(int index) {
+        return entries.getLong(index * ENTRY_BYTES);
+    }
+
+    private int moveAt(int index) {
+        return entries.get(index * ENTRY_BYTES + 8);
+    }
+
+    private long gamesAt(int index) {
+        return entries.getInt(index * ENTRY_BYTES + 9) & 0xFFFFFFFFL;
+    }
+
+    private long pointsAt(int index) {
+        return entries.getInt(index * ENTRY_BYTES + 13) & 0xFFFFFFFFL;
+    }
+
+    private static boolean hasMagic(ByteBuffer buffer) {
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (buffer.get(i) != MAGIC[i]) return false;
+        }
+        return true;
+    }
+}
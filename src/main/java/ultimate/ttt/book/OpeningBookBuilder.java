@@ -0,0 +1,118 @@
+package ultimate.ttt.book;
+
+import ultimate.ttt.Player;
+import ultimate.ttt.engine.Position;
+import ultimate.ttt.engine.Symmetry;
+import ultimate.ttt.record.GameRecordReader;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds an {@link OpeningBook} offline from recorded or self-played games (see {@link GameRecordReader}).
+ * <pre>
+ * java -cp UltimateTicTacToe.jar ultimate.ttt.book.OpeningBookBuilder --plies 12 --min-games 4 --out book.uttb games.uttr
+ * </pre>
+ */
+public class OpeningBookBuilder {
+
+    private final int maxPlies;
+    private final Map<Key, long[]> statistics = new HashMap<>();
+    private final Position position = new Position();
+
+    /**
+     * @param maxPlies number of opening moves of every game added to the book
+     */
+    public OpeningBookBuilder(int maxPlies) {
+        this.maxPlies = maxPlies;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int plies = 12;
+        int minGames = 4;
+        Path out = Path.of("book.uttb");
+        List<Path> inputs = new ArrayList<>();
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--plies" -> plies = Integer.parseInt(args[++i]);
+                case "--min-games" -> minGames = Integer.parseInt(args[++i]);
+                case "--out" -> out = Path.of(args[++i]);
+                default -> inputs.add(Path.of(args[i]));
+            }
+        }
+        if (inputs.isEmpty()) {
+            System.err.println("Usage: OpeningBookBuilder [--plies N] [--min-games N] [--out FILE] RECORDS...");
+            System.exit(2);
+        }
+
+        OpeningBookBuilder builder = new OpeningBookBuilder(plies);
+        for (Path input : inputs) builder.addGames(input);
+        long entries = builder.write(out, minGames);
+        System.out.println("Wrote " + entries + " book entries to " + out);
+    }
+
+    /**
+     * Adds the opening moves of every finished game in a record file
+     */
+    public void addGames(Path records) throws IOException {
+        try (GameRecordReader reader = new GameRecordReader(records)) {
+            while (reader.next()) {
+                if (reader.isFinished()) addGame(reader);
+            }
+        }
+    }
+
+    private void addGame(GameRecordReader game) {
+        position.reset(game.firstTurn());
+        int plies = Math.min(maxPlies, game.moveCount());
+        for (int ply = 0; ply < plies; ply++) {
+            int move = game.move(ply);
+            Player mover = position.sideToMove();
+
+            Key key = new Key(position.canonicalHash(), Symmetry.cell(position.canonicalSymmetry(), move));
+            long[] counts = statistics.computeIfAbsent(key, unused -> new long[2]);
+            counts[0]++;
+            if (game.winner() == mover) counts[1] += 2;
+            else if (game.isDraw()) counts[1] += 1;
+
+            position.makeMove(move);
+        }
+    }
+
+    /**
+     * Writes all entries played in at least {@code minGames} games, sorted for binary search
+     * @return number of entries written
+     */
+    public long write(Path file, int minGames) throws IOException {
+        List<Map.Entry<Key, long[]>> entries = new ArrayList<>();
+        for (Map.Entry<Key, long[]> entry : statistics.entrySet()) {
+            if (entry.getValue()[0] >= minGames) entries.add(entry);
+        }
+        entries.sort(Map.Entry.comparingByKey(Comparator.comparingLong(Key::hash).thenComparingInt(Key::move)));
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+            out.write(OpeningBook.MAGIC);
+            out.write(new byte[] {OpeningBook.VERSION, 0, 0, 0});
+            out.writeLong(entries.size());
+            for (Map.Entry<Key, long[]> entry : entries) {
+                out.writeLong(entry.getKey().hash());
+                out.writeByte(entry.getKey().move());
+                out.writeInt((int) Math.min(entry.getValue()[0], 0xFFFFFFFFL));
+                out.writeInt((int) Math.min(entry.getValue()[1], 0xFFFFFFFFL));
+            }
+        }
+        return entries.size();
+    }
+
+    private record Key(long hash, int move) {
+    }
+}
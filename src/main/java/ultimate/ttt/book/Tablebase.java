@@ -0,0 +1,151 @@
+package ultimate.ttt.book;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.BufferedInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * On-disk store of exactly solved positions, keyed by position hash. <br>
+ * The file starts with the magic bytes {@code UTTE}, a version byte and 3 reserved bytes, followed by
+ * 9-byte records: position hash ({@link ultimate.ttt.engine.Position#canonicalHash()}, 8 bytes, shared by all
+ * rotations and reflections of a position) and the game-theoretic value for the player to move (1 byte: 1 win,
+ * 0 draw, -1 loss). All records are loaded on opening; {@link #flush()} writes all of them to a temporary file that
+ * then replaces the old one, so an interrupted flush leaves the previous file intact. Instances are safe for
+ * concurrent use, a flush only holds the lock while copying the records, not while writing them.
+ */
+public class Tablebase implements AutoCloseable {
+
+    /**
+     * Returned by {@link #get(long)} for positions that have not been solved
+     */
+    public static final int UNKNOWN = Integer.MIN_VALUE;
+
+    private static final byte[] MAGIC = {'U', 'T', 'T', 'E'};
+    private static final byte VERSION = 2;
+
+    private final Path file;
+    private final Map<Long, Byte> values = new HashMap<>();
+    // true if positions were solved since the last flush
+    private boolean modified;
+    // one flush at a time, so an older copy never replaces a newer file
+    private final Object flushLock = new Object();
+
+    /**
+     * Loads all solved positions of the file, which is created on the first {@link #flush()} if missing. A file of
+     * another version is treated as empty and replaced by the next flush.
+     * @throws IOException if the file exists but is not a tablebase
+     */
+    public Tablebase(Path file) throws IOException {
+        this.file = file;
+        if (Files.exists(file) && Files.size(file) > 0) load();
+    }
+
+    /**
+     * @return value for the player to move (1 win, 0 draw, -1 loss) or {@link #UNKNOWN}
+     */
+    public synchronized int get(long hash) {
+        Byte value = values.get(hash);
+        return value == null ? UNKNOWN : value;
+    }
+
+    /**
+     * Records a solved position, written to disk by the next {@link #flush()}
+     */
+    public synchronized void put(long hash, int value) {
+        if (values.put(hash, (byte) value) == null) this.modified = true;
+    }
+
+    /**
+     * @return number of solved positions
+     */
+    public synchronized int size() {
+        return values.size();
+    }
+
+    /**
+     * Writes all solved positions to the file if any were added since the last flush
+     */
+    public void flush() throws IOException {
+        synchronized (flushLock) {
+            long[] hashes;
+            byte[] results;
+            synchronized (this) {
+                if (!modified) return;
+                hashes = new long[values.size()];
+                results = new byte[values.size()];
+                int i = 0;
+                for (Map.Entry<Long, Byte> entry : values.entrySet()) {
+                    hashes[i] = entry.getKey();
+                    results[i] = entry.getValue();
+                    i++;
+                }
+                this.modified = false;
+            }
+
+            try {
+                write(hashes, results);
+            } catch (IOException e) {
+                synchronized (this) {
+                    this.modified = true;
+                }
+                throw e;
+            }
+        }
+    }
+
+    private void write(long[] hashes, byte[] results) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary), 1 << 16))) {
+            out.write(MAGIC);
+            out.write(new byte[] {VERSION, 0, 0, 0});
+            for (int i = 0; i < hashes.length; i++) {
+                out.writeLong(hashes[i]);
+                out.writeByte(results[i]);
+            }
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+
+    private void load() throws IOException {
+        try (InputStream stream = Files.newInputStream(file);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(stream, 1 << 16))) {
+            byte[] header = new byte[8];
+            in.readFully(header);
+            for (int i = 0; i < MAGIC.length; i++) {
+                if (header[i] != MAGIC[i]) throw new IOException("Not a tablebase: " + file);
+            }
+            if (header[4] != VERSION) {
+                // older versions were keyed by another hash, their values are solved again and the file replaced
+                this.modified = true;
+                return;
+            }
+
+            while (true) {
+                long hash;
+                byte value;
+                try {
+                    hash = in.readLong();
+                    value = in.readByte();
+                } catch (EOFException e) {
+                    // end of the file, or a partial record left by an interrupted write of an older version
+                    break;
+                }
+                values.put(hash, value);
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package ultimate.ttt.engine;
+
+/**
+ * Precomputed win-line tables for a 3x3 grid encoded as a 9-bit mask (bit index = row * 3 + column). <br>
+ * The same tables are used for the tiles of a local board and for the local boards of the macro board.
+ * Every query is a single load from a 512-entry table indexed by the mask.
+ */
+public final class Lines {
+
+    /**
+     * The 8 winning lines: 3 rows, 3 columns and both diagonals
+     */
+    public static final int[] LINES = {
+            0b000_000_111, 0b000_111_000, 0b111_000_000,
+            0b001_001_001, 0b010_010_010, 0b100_100_100,
+            0b100_010_001, 0b001_010_100
+    };
+
+    /**
+     * {@link #classify(int)} flag: the mask contains a complete line
+     */
+    public static final int WON = 1;
+
+    /**
+     * {@link #classify(int)} flag: the mask touches every line, so the opponent has no path to victory left
+     */
+    public static final int BLOCKING = 2;
+
+    /**
+     * 8-bit mask with one bit per entry of {@link #LINES}
+     */
+    public static final int ALL_LINES = 0xFF;
+
+    private static final byte[] CLASSIFICATION = new byte[512];
+    private static final int[] LINES_THROUGH = new int[9];
+
+    static {
+        for (int mask = 0; mask < 512; mask++) {
+            int flags = BLOCKING;
+            for (int line : LINES) {
+                if ((mask & line) == line) flags |= WON;
+                if ((mask & line) == 0) flags &= ~BLOCKING;
+            }
+            CLASSIFICATION[mask] = (byte) flags;
+        }
+        for (int line = 0; line < LINES.length; line++) {
+            for (int square = 0; square < 9; square++) {
+                if ((LINES[line] & (1 << square)) != 0) LINES_THROUGH[square] |= 1 << line;
+            }
+        }
+    }
+
+    private Lines() {
+    }
+
+    /**
+     * Classifies a 9-bit mask with a single table lookup
+     * @param mask 9-bit mask of the tiles (or boards) owned by one player
+     * @return combination of {@link #WON} and {@link #BLOCKING}
+     */
+    public static int classify(int mask) {
+        return CLASSIFICATION[mask];
+    }
+
+    /**
+     * @param mask 9-bit mask of the tiles (or boards) owned by one player
+     * @return true if the mask contains a complete line
+     */
+    public static boolean isWon(int mask) {
+        return (CLASSIFICATION[mask] & WON) != 0;
+    }
+
+    /**
+     * Predictive check to see if a player has at least one possible path to victory.
+     * @param blocked 9-bit mask of the tiles (or boards) the player can no longer use
+     * @return true if at least one line contains none of the blocked tiles
+     */
+    public static boolean isOpen(int blocked) {
+        return (CLASSIFICATION[blocked] & BLOCKING) == 0;
+    }
+
+    /**
+     * @param square index 0-8 of a tile (or board)
+     * @return 8-bit mask of the entries of {@link #LINES} passing through the square
+     */
+    public static int linesThrough(int square) {
+        return LINES_THROUGH[square];
+    }
+}
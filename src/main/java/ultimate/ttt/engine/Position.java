@@ -0,0 +1,421 @@
+package ultimate.ttt.engine;
+
+import ultimate.ttt.BoardState;
+import ultimate.ttt.ButtonState;
+import ultimate.ttt.Player;
+
+import java.util.Arrays;
+
+/**
+ * Headless, allocation-free Ultimate Tic Tac Toe position. <br>
+ * Cells are addressed by a single index 0-80: {@code board * 9 + square}, where
+ * {@code board = globalRow * 3 + globalColumn} and {@code square = localRow * 3 + localColumn}. <br>
+ * Each player's 81 cells are stored as an 81-bit mask split over two longs (boards 0-6 in the low
+ * word, boards 7-8 in the high word, 9 bits per board), and the claimed and drawn local boards as 9-bit macro masks.
+ * Moves are applied with {@link #makeMove(int)} and reverted with {@link #unmakeMove()}.
+ */
+public final class Position {
+
+    public static final int CELLS = 81;
+
+    /**
+     * Value of {@link #forcedBoard()} when the player to move may choose any unclaimed board
+     */
+    public static final int ANY_BOARD = -1;
+
+    private static final int BLUE = 0;
+    private static final int RED = 1;
+
+    private static final int LOW_BOARDS = 7;
+    private static final int FULL = 0x1FF;
+
+    // per-player cell masks, see class comment for the layout
+    private final long[] low = new long[2];
+    private final long[] high = new long[2];
+
+    // per-player 9-bit masks of the claimed local boards
+    private final int[] macro = new int[2];
+    // 9-bit mask of the local boards nobody can win anymore
+    private int drawnBoards;
+    // per-player 8-bit masks of the macro lines (see Lines#LINES) that contain no blocking board yet,
+    // only updated when a local board gets claimed or drawn
+    private final int[] liveLines = {Lines.ALL_LINES, Lines.ALL_LINES};
+
+    private int forcedBoard;
+    private int side;
+    // Zobrist hash of the cells, the forced board and the side to move, for the position seen through each
+    // symmetry; index 0 is the position as it is
+    private final long[] hashes = new long[Symmetry.COUNT];
+    private int ply;
+    private Player winner;
+
+    // undo information, one entry per ply
+    private final byte[] moves = new byte[CELLS];
+    private final byte[] forcedHistory = new byte[CELLS];
+    private final short[] liveLinesHistory = new short[CELLS];
+
+    /**
+     * Constructs an empty position with {@link Player#BLUE} to move
+     */
+    public Position() {
+        this(Player.BLUE);
+    }
+
+    /**
+     * Constructs an empty position
+     * @param firstTurn {@link Player} who has the first turn
+     */
+    public Position(Player firstTurn) {
+        reset(firstTurn);
+    }
+
+    /**
+     * Clears the position to the empty board
+     * @param firstTurn {@link Player} who has the first turn
+     */
+    public void reset(Player firstTurn) {
+        low[BLUE] = low[RED] = 0L;
+        high[BLUE] = high[RED] = 0L;
+        macro[BLUE] = macro[RED] = 0;
+        liveLines[BLUE] = liveLines[RED] = Lines.ALL_LINES;
+        this.drawnBoards = 0;
+        this.ply = 0;
+        this.side = index(firstTurn);
+        this.forcedBoard = ANY_BOARD;
+        this.winner = Player.NONE;
+        // the empty board looks the same through every symmetry
+        Arrays.fill(hashes, Zobrist.forced(ANY_BOARD) ^ (side == RED ? Zobrist.side() : 0L));
+    }
+
+    /**
+     * Converts UI coordinates to a cell index
+     * @param globalRow    The row index (0-2) of the local board within the macro-board.
+     * @param globalColumn The column index (0-2) of the local board within the macro-board.
+     * @param localRow     The row index (0-2) of the tile within the local board.
+     * @param localColumn  The column index (0-2) of the tile within the local board.
+     * @return cell index 0-80
+     */
+    public static int cell(int globalRow, int globalColumn, int localRow, int localColumn) {
+        return (globalRow * 3 + globalColumn) * 9 + localRow * 3 + localColumn;
+    }
+
+    /**
+     * @return index 0-8 of the local board containing the cell
+     */
+    public static int boardOf(int cell) {
+        return cell / 9;
+    }
+
+    /**
+     * @return index 0-8 of the cell within its local board
+     */
+    public static int squareOf(int cell) {
+        return cell % 9;
+    }
+
+    /**
+     * Copies the complete state of another position, including its move history
+     */
+    public void copyFrom(Position other) {
+        System.arraycopy(other.low, 0, low, 0, 2);
+        System.arraycopy(other.high, 0, high, 0, 2);
+        System.arraycopy(other.macro, 0, macro, 0, 2);
+        System.arraycopy(other.liveLines, 0, liveLines, 0, 2);
+        System.arraycopy(other.liveLinesHistory, 0, liveLinesHistory, 0, other.ply);
+        System.arraycopy(other.hashes, 0, hashes, 0, Symmetry.COUNT);
+        System.arraycopy(other.moves, 0, moves, 0, other.ply);
+        System.arraycopy(other.forcedHistory, 0, forcedHistory, 0, other.ply);
+        this.drawnBoards = other.drawnBoards;
+        this.forcedBoard = other.forcedBoard;
+        this.side = other.side;
+        this.ply = other.ply;
+        this.winner = other.winner;
+    }
+
+    /**
+     * Places the stone of the player to move on the given cell. <br>
+     * The move must be legal (see {@link #isLegal(int)}); this is not checked to keep simulations fast.
+     * Claims or kills the affected local board, resolves the game result and computes the board
+     * the opponent is forced to play in.
+     * @param cell index 0-80 of the cell
+     */
+    public void makeMove(int cell) {
+        int board = boardOf(cell);
+        int square = squareOf(cell);
+
+        moves[ply] = (byte) cell;
+        forcedHistory[ply] = (byte) forcedBoard;
+        liveLinesHistory[ply] = (short) (liveLines[BLUE] | liveLines[RED] << 8);
+        ply++;
+
+        setCell(side, board, square);
+
+        int flags = Lines.classify(localMask(side, board));
+        if ((flags & Lines.WON) != 0) {
+            macro[side] |= 1 << board;
+            if (Lines.isWon(macro[side])) winner = player(side);
+            liveLines[side ^ 1] &= ~Lines.linesThrough(board);
+        } else if ((flags & Lines.BLOCKING) != 0 && (Lines.classify(localMask(side ^ 1, board)) & Lines.BLOCKING) != 0) {
+            // neither player has a path to victory left on this board
+            drawnBoards |= 1 << board;
+            liveLines[BLUE] &= ~Lines.linesThrough(board);
+            liveLines[RED] &= ~Lines.linesThrough(board);
+        }
+
+        int previousForced = forcedBoard;
+        forcedBoard = isDecided(square) ? ANY_BOARD : square;
+        Zobrist.toggleMove(hashes, side, cell, previousForced, forcedBoard);
+        side ^= 1;
+    }
+
+    /**
+     * Reverts the last move made with {@link #makeMove(int)}
+     */
+    public void unmakeMove() {
+        ply--;
+        side ^= 1;
+        int cell = moves[ply];
+        int board = boardOf(cell);
+
+        clearCell(side, board, squareOf(cell));
+
+        // a decided board cannot receive further moves, so the board was undecided before this move
+        int keep = ~(1 << board);
+        macro[BLUE] &= keep;
+        macro[RED] &= keep;
+        drawnBoards &= keep;
+
+        Zobrist.toggleMove(hashes, side, cell, forcedHistory[ply], forcedBoard);
+        forcedBoard = forcedHistory[ply];
+        liveLines[BLUE] = liveLinesHistory[ply] & Lines.ALL_LINES;
+        liveLines[RED] = (liveLinesHistory[ply] >>> 8) & Lines.ALL_LINES;
+        // no moves are made after the game has ended
+        winner = Player.NONE;
+    }
+
+    /**
+     * @return 9-bit mask of the local boards the player to move may play in, 0 if the game is over
+     */
+    public int playableBoards() {
+        if (isGameOver()) return 0;
+        if (forcedBoard != ANY_BOARD) return 1 << forcedBoard;
+        return ~(macro[BLUE] | macro[RED] | drawnBoards) & FULL;
+    }
+
+    /**
+     * @return 9-bit mask of the empty tiles of a local board
+     */
+    public int emptySquares(int board) {
+        return ~(localMask(BLUE, board) | localMask(RED, board)) & FULL;
+    }
+
+    /**
+     * @return number of empty tiles on the local boards that are still undecided
+     */
+    public int openCells() {
+        int count = 0;
+        int undecided = ~(macro[BLUE] | macro[RED] | drawnBoards) & FULL;
+        while (undecided != 0) {
+            count += Integer.bitCount(emptySquares(Integer.numberOfTrailingZeros(undecided)));
+            undecided &= undecided - 1;
+        }
+        return count;
+    }
+
+    /**
+     * @param cell index of the cell
+     * @return true if the player to move may play the cell
+     */
+    public boolean isLegal(int cell) {
+        if (cell < 0 || cell >= CELLS) return false;
+        int board = boardOf(cell);
+        if ((playableBoards() & (1 << board)) == 0) return false;
+        return (emptySquares(board) & (1 << squareOf(cell))) != 0;
+    }
+
+    /**
+     * Writes all legal moves into the given array
+     * @param out array of at least {@link #CELLS} entries
+     * @return number of legal moves written
+     */
+    public int legalMoves(int[] out) {
+        int count = 0;
+        int boards = playableBoards();
+        while (boards != 0) {
+            int board = Integer.numberOfTrailingZeros(boards);
+            boards &= boards - 1;
+
+            int empty = emptySquares(board);
+            while (empty != 0) {
+                out[count++] = board * 9 + Integer.numberOfTrailingZeros(empty);
+                empty &= empty - 1;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return {@link Player#BLUE} or {@link Player#RED} if the game has been won <br>
+     * {@link Player#NONE} otherwise
+     */
+    public Player winner() {
+        return winner;
+    }
+
+    /**
+     * Constant-time read of the incrementally maintained line masks
+     * @return true if neither player can win the game anymore
+     */
+    public boolean isDraw() {
+        return winner == Player.NONE && (liveLines[BLUE] | liveLines[RED]) == 0;
+    }
+
+    public boolean isGameOver() {
+        return winner != Player.NONE || (liveLines[BLUE] | liveLines[RED]) == 0;
+    }
+
+    /**
+     * @return Zobrist hash of the position, covering the cells, the forced board and the side to move
+     */
+    public long hash() {
+        return hashes[Symmetry.IDENTITY];
+    }
+
+    /**
+     * @param symmetry see {@link Symmetry}
+     * @return {@link #hash()} of the position transformed by the symmetry
+     */
+    public long symmetricHash(int symmetry) {
+        return hashes[symmetry];
+    }
+
+    /**
+     * Hash shared by a position and all its rotations and reflections, the smallest of the symmetric hashes. <br>
+     * Keying stored results by it lets one entry serve up to 8 positions. Moves stored with it must be
+     * converted to the canonical orientation first, see {@link #canonicalSymmetry()}.
+     */
+    public long canonicalHash() {
+        long canonical = hashes[0];
+        for (int symmetry = 1; symmetry < Symmetry.COUNT; symmetry++) canonical = Math.min(canonical, hashes[symmetry]);
+        return canonical;
+    }
+
+    /**
+     * @return the symmetry turning this position into its canonical orientation, the one hashed by
+     * {@link #canonicalHash()}: a move m of this position is m' = {@code Symmetry.cell(s, m)} there, and
+     * {@code Symmetry.cell(Symmetry.inverse(s), m')} converts it back
+     */
+    public int canonicalSymmetry() {
+        int canonical = 0;
+        for (int symmetry = 1; symmetry < Symmetry.COUNT; symmetry++) {
+            if (hashes[symmetry] < hashes[canonical]) canonical = symmetry;
+        }
+        return canonical;
+    }
+
+    /**
+     * @return index 0-8 of the board the player to move must play in, or {@link #ANY_BOARD}
+     */
+    public int forcedBoard() {
+        return forcedBoard;
+    }
+
+    public Player sideToMove() {
+        return player(side);
+    }
+
+    /**
+     * @return {@link Player} who made the first move of the game
+     */
+    public Player firstTurn() {
+        return player(side ^ (ply & 1));
+    }
+
+    /**
+     * @return number of moves played so far
+     */
+    public int ply() {
+        return ply;
+    }
+
+    /**
+     * @param ply index of the move, 0 being the first move of the game
+     * @return cell index of the move played at the given ply
+     */
+    public int moveAt(int ply) {
+        return moves[ply];
+    }
+
+    public ButtonState cellState(int cell) {
+        int board = boardOf(cell);
+        int bit = 1 << squareOf(cell);
+        if ((localMask(BLUE, board) & bit) != 0) return ButtonState.CLAIMED_BLUE;
+        if ((localMask(RED, board) & bit) != 0) return ButtonState.CLAIMED_RED;
+        return ButtonState.EMPTY;
+    }
+
+    public BoardState boardState(int board) {
+        int bit = 1 << board;
+        if ((macro[BLUE] & bit) != 0) return BoardState.CLAIMED_BLUE;
+        if ((macro[RED] & bit) != 0) return BoardState.CLAIMED_RED;
+        if ((drawnBoards & bit) != 0) return BoardState.DRAW;
+        return BoardState.UNCLAIMED;
+    }
+
+    /**
+     * @return 9-bit mask of the local boards claimed by the player
+     */
+    public int claimedBoards(Player player) {
+        return macro[index(player)];
+    }
+
+    /**
+     * @return 9-bit mask of the local boards nobody can win anymore
+     */
+    public int drawnBoards() {
+        return drawnBoards;
+    }
+
+    /**
+     * @return 9-bit mask of the tiles the player owns on a local board
+     */
+    public int localMask(Player player, int board) {
+        return localMask(index(player), board);
+    }
+
+    /**
+     * @return 8-bit mask of the macro lines (see {@link Lines#LINES}) the player can still win through
+     */
+    int liveLines(Player player) {
+        return liveLines[index(player)];
+    }
+
+    private boolean isDecided(int board) {
+        return ((macro[BLUE] | macro[RED] | drawnBoards) & (1 << board)) != 0;
+    }
+
+    private int localMask(int player, int board) {
+        if (board < LOW_BOARDS) return (int) (low[player] >>> (board * 9)) & FULL;
+        return (int) (high[player] >>> ((board - LOW_BOARDS) * 9)) & FULL;
+    }
+
+    private void setCell(int player, int board, int square) {
+        if (board < LOW_BOARDS) low[player] |= 1L << (board * 9 + square);
+        else high[player] |= 1L << ((board - LOW_BOARDS) * 9 + square);
+    }
+
+    private void clearCell(int player, int board, int square) {
+        if (board < LOW_BOARDS) low[player] &= ~(1L << (board * 9 + square));
+        else high[player] &= ~(1L << ((board - LOW_BOARDS) * 9 + square));
+    }
+
+    private static int index(Player player) {
+        if (player == Player.BLUE) return BLUE;
+        if (player == Player.RED) return RED;
+        throw new IllegalArgumentException("No side for " + player);
+    }
+
+    private static Player player(int index) {
+        return index == BLUE ? Player.BLUE : Player.RED;
+    }
+}
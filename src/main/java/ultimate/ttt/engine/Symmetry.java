@@ -0,0 +1,114 @@
+package ultimate.ttt.engine;
+
+/**
+ * The 8 symmetries of the square (rotations and reflections), applied to the global grid and to every local
+ * board at the same time. <br>
+ * A move in square s sends the opponent to board s, so transforming boards and squares with the same symmetry
+ * turns every legal game into a legal game with the same result. Symmetries are identified by an index 0-7,
+ * 0 being the identity; squares are numbered {@code row * 3 + column} as in {@link Position}.
+ */
+public final class Symmetry {
+
+    /**
+     * Number of symmetries
+     */
+    public static final int COUNT = 8;
+
+    public static final int IDENTITY = 0;
+
+    // square (0-8) after each symmetry
+    private static final int[][] SQUARES = new int[COUNT][9];
+    // cell (0-80) after each symmetry
+    private static final int[][] CELLS = new int[COUNT][Position.CELLS];
+    // 9-bit square mask after each symmetry
+    private static final short[][] MASKS = new short[COUNT][512];
+    private static final int[] INVERSE = new int[COUNT];
+
+    static {
+        for (int symmetry = 0; symmetry < COUNT; symmetry++) {
+            for (int square = 0; square < 9; square++) {
+                SQUARES[symmetry][square] = transform(symmetry, square / 3, square % 3);
+            }
+        }
+        for (int symmetry = 0; symmetry < COUNT; symmetry++) {
+            int[] squares = SQUARES[symmetry];
+            for (int cell = 0; cell < Position.CELLS; cell++) {
+                CELLS[symmetry][cell] = squares[Position.boardOf(cell)] * 9 + squares[Position.squareOf(cell)];
+            }
+            for (int mask = 0; mask < 512; mask++) {
+                int transformed = 0;
+                for (int rest = mask; rest != 0; rest &= rest - 1) {
+                    transformed |= 1 << squares[Integer.numberOfTrailingZeros(rest)];
+                }
+                MASKS[symmetry][mask] = (short) transformed;
+            }
+            for (int other = 0; other < COUNT; other++) {
+                if (SQUARES[other][squares[1]] == 1 && SQUARES[other][squares[3]] == 3) INVERSE[symmetry] = other;
+            }
+        }
+    }
+
+    private Symmetry() {
+    }
+
+    private static int transform(int symmetry, int row, int column) {
+        return switch (symmetry) {
+            case 0 -> row * 3 + column;
+            case 1 -> column * 3 + (2 - row);          // quarter turn clockwise
+            case 2 -> (2 - row) * 3 + (2 - column);    // half turn
+            case 3 -> (2 - column) * 3 + row;          // quarter turn counterclockwise
+            case 4 -> row * 3 + (2 - column);          // mirror left to right
+            case 5 -> (2 - row) * 3 + column;          // mirror top to bottom
+            case 6 -> column * 3 + row;                // main diagonal
+            case 7 -> (2 - column) * 3 + (2 - row);    // anti-diagonal
+            default -> throw new IllegalArgumentException("No such symmetry: " + symmetry);
+        };
+    }
+
+    /**
+     * @param square board or square index 0-8
+     */
+    public static int square(int symmetry, int square) {
+        return SQUARES[symmetry][square];
+    }
+
+    /**
+     * @param cell cell index 0-80
+     */
+    public static int cell(int symmetry, int cell) {
+        return CELLS[symmetry][cell];
+    }
+
+    /**
+     * @param mask 9-bit mask of boards or squares
+     */
+    public static int mask(int symmetry, int mask) {
+        return MASKS[symmetry][mask];
+    }
+
+    /**
+     * @return board index 0-8 after the symmetry, {@link Position#ANY_BOARD} stays as it is
+     */
+    public static int board(int symmetry, int board) {
+        return board == Position.ANY_BOARD ? board : SQUARES[symmetry][board];
+    }
+
+    /**
+     * Replays the game of a position with every move transformed by the symmetry. With
+     * {@link Position#canonicalSymmetry()} this gives the canonical form of a position.
+     * @param target position to overwrite, not the source
+     */
+    public static void apply(int symmetry, Position source, Position target) {
+        target.reset(source.firstTurn());
+        for (int ply = 0; ply < source.ply(); ply++) {
+            target.makeMove(CELLS[symmetry][source.moveAt(ply)]);
+        }
+    }
+
+    /**
+     * @return the symmetry undoing the given one
+     */
+    public static int inverse(int symmetry) {
+        return INVERSE[symmetry];
+    }
+}
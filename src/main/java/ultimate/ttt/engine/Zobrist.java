@@ -0,0 +1,99 @@
+package ultimate.ttt.engine;
+
+import java.util.SplittableRandom;
+
+/**
+ * Zobrist keys of the 81 cells per player, the forced-board index and the side to move. <br>
+ * The keys are generated from a fixed seed, so hashes are stable across runs and can be stored on disk. <br>
+ * For the hashes of the 8 symmetric images of a position (see {@link Symmetry}) the combined change of every
+ * possible move is precomputed per symmetry, so one move updates all 8 hashes with 8 XORs of contiguous keys.
+ */
+public final class Zobrist {
+
+    private static final long SEED = 0x5EED_0F_0B1DL;
+
+    private static final long[][] CELLS = new long[2][Position.CELLS];
+    // index 0 is Position#ANY_BOARD, index 1-9 the boards 0-8
+    private static final long[] FORCED = new long[10];
+    private static final long SIDE;
+
+    // change of the 8 symmetric hashes by a move, grouped by player, cell and forced boards before and after
+    // the move (see #moveKeys): a move is either free or inside the forced board, and either forces the opponent
+    // to the board of its square or lets them play anywhere
+    private static final long[] MOVES = new long[2 * Position.CELLS * 4 * Symmetry.COUNT];
+
+    static {
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (int player = 0; player < 2; player++) {
+            for (int cell = 0; cell < Position.CELLS; cell++) {
+                CELLS[player][cell] = random.nextLong();
+            }
+        }
+        for (int i = 0; i < FORCED.length; i++) {
+            FORCED[i] = random.nextLong();
+        }
+        SIDE = random.nextLong();
+
+        for (int player = 0; player < 2; player++) {
+            for (int cell = 0; cell < Position.CELLS; cell++) {
+                int[] previous = {Position.ANY_BOARD, Position.boardOf(cell)};
+                int[] forced = {Position.ANY_BOARD, Position.squareOf(cell)};
+                for (int before = 0; before < 2; before++) {
+                    for (int after = 0; after < 2; after++) {
+                        int keys = moveKeys(player, cell, previous[before], forced[after]);
+                        for (int symmetry = 0; symmetry < Symmetry.COUNT; symmetry++) {
+                            MOVES[keys + symmetry] = CELLS[player][Symmetry.cell(symmetry, cell)]
+                                    ^ FORCED[Symmetry.board(symmetry, previous[before]) + 1]
+                                    ^ FORCED[Symmetry.board(symmetry, forced[after]) + 1]
+                                    ^ SIDE;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private Zobrist() {
+    }
+
+    /**
+     * Key of a stone
+     * @param player 0 for blue, 1 for red
+     * @param cell   index 0-80 of the cell
+     */
+    static long cell(int player, int cell) {
+        return CELLS[player][cell];
+    }
+
+    /**
+     * @param forcedBoard index 0-8 or {@link Position#ANY_BOARD}
+     */
+    static long forced(int forcedBoard) {
+        return FORCED[forcedBoard + 1];
+    }
+
+    /**
+     * Key toggled whenever the side to move changes
+     */
+    static long side() {
+        return SIDE;
+    }
+
+    /**
+     * Toggles a move in the hashes of all symmetric images of a position, the same call makes and unmakes it
+     * @param hashes         one hash per symmetry, see {@link Symmetry}
+     * @param player         0 for blue, 1 for red
+     * @param previousForced forced board before the move
+     * @param forcedBoard    forced board after the move
+     */
+    static void toggleMove(long[] hashes, int player, int cell, int previousForced, int forcedBoard) {
+        int keys = moveKeys(player, cell, previousForced, forcedBoard);
+        for (int symmetry = 0; symmetry < Symmetry.COUNT; symmetry++) hashes[symmetry] ^= MOVES[keys + symmetry];
+    }
+
+    private static int moveKeys(int player, int cell, int previousForced, int forcedBoard) {
+        int before = previousForced == Position.ANY_BOARD ? 0 : 1;
+        int after = forcedBoard == Position.ANY_BOARD ? 0 : 1;
+        return ((player * Position.CELLS + cell) * 4 + before * 2 + after) * Symmetry.COUNT;
+    }
+}
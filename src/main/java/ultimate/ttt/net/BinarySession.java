@@ -0,0 +1,83 @@
+package ultimate.ttt.net;
+
+import ultimate.ttt.Player;
+import ultimate.ttt.engine.Position;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.Socket;
+import java.util.Arrays;
+
+/**
+ * Session speaking the binary {@link WireProtocol}. <br>
+ * Every frame is encoded into an array of its own when it is queued, frames may be queued by two threads at once.
+ */
+final class BinarySession extends Session {
+
+    private final InputStream in;
+
+    BinarySession(Socket socket, InputStream in) throws IOException {
+        super(socket);
+        this.in = in;
+    }
+
+    @Override
+    int readCommand() throws IOException {
+        int command = in.read();
+        if (command == -1) return CLOSED;
+        if (command < Position.CELLS || command == WireProtocol.JOIN
+                || command == WireProtocol.QUIT || command == WireProtocol.RESYNC) {
+            return command;
+        }
+        sendError(ProtocolError.UNKNOWN_COMMAND);
+        return INVALID;
+    }
+
+    @Override
+    void sendWaiting() {
+        sendFrame(WireProtocol.WAITING, 0, 0);
+    }
+
+    @Override
+    void sendStart(Player side, Player firstTurn) {
+        sendFrame(WireProtocol.START, side.ordinal(), firstTurn.ordinal());
+    }
+
+    @Override
+    void sendMove(Position position) {
+        byte[] frame = new byte[WireProtocol.MAX_FRAME_BYTES];
+        send(Arrays.copyOf(frame, WireProtocol.writeDelta(frame, position)));
+    }
+
+    @Override
+    void sendSnapshot(Position position) {
+        byte[] frame = new byte[WireProtocol.MAX_FRAME_BYTES];
+        send(Arrays.copyOf(frame, WireProtocol.writeSnapshot(frame, position)));
+    }
+
+    @Override
+    void sendEnd(Player winner) {
+        sendFrame(WireProtocol.END, winner.ordinal(), 0);
+    }
+
+    @Override
+    void sendLeft() {
+        sendFrame(WireProtocol.LEFT, 0, 0);
+    }
+
+    @Override
+    void sendError(ProtocolError error) {
+        sendFrame(WireProtocol.ERROR, error.ordinal(), 0);
+    }
+
+    /**
+     * Sends a frame of up to 3 bytes
+     */
+    private void sendFrame(int type, int first, int second) {
+        byte[] frame = new byte[WireProtocol.frameLength(type)];
+        frame[0] = (byte) type;
+        if (frame.length > 1) frame[1] = (byte) first;
+        if (frame.length > 2) frame[2] = (byte) second;
+        send(frame);
+    }
+}
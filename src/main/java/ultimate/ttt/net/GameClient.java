@@ -0,0 +1,214 @@
+package ultimate.ttt.net;
+
+import ultimate.ttt.BoardState;
+import ultimate.ttt.ButtonState;
+import ultimate.ttt.GameListener;
+import ultimate.ttt.Player;
+import ultimate.ttt.engine.Position;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.util.Arrays;
+
+/**
+ * Client of the {@link GameServer} speaking the binary {@link WireProtocol}. <br>
+ * The client mirrors the tiles, boards and playable boards of its game and reports every change to a
+ * {@link GameListener}, so a view like {@link ultimate.ttt.BoardView} can apply the server's updates directly.
+ * A snapshot only reports what differs from the mirror. If a delta does not follow the last known sequence
+ * number, the client asks for a snapshot instead of applying it. <br>
+ * Frames are read and reported on the thread calling {@link #run()}; a JavaFX client would wrap its listeners
+ * with {@code Platform.runLater}.
+ */
+public class GameClient implements Runnable, AutoCloseable {
+
+    /**
+     * Events of the game besides the changes on the board
+     */
+    public interface Events {
+
+        void waiting();
+
+        /**
+         * @param side      side this client plays
+         * @param firstTurn side making the first move
+         */
+        void started(Player side, Player firstTurn);
+
+        /**
+         * @param winner {@link Player#NONE} for a draw
+         */
+        void ended(Player winner);
+
+        void opponentLeft();
+
+        void rejected(ProtocolError error);
+    }
+
+    private static final int ALL_BOARDS = 0x1FF;
+
+    private final Socket socket;
+    private final InputStream in;
+    private final OutputStream out;
+    private final GameListener listener;
+    private final Events events;
+
+    private final byte[] frame = new byte[WireProtocol.MAX_FRAME_BYTES];
+    private final ButtonState[] tiles = new ButtonState[Position.CELLS];
+    private final BoardState[] boards = new BoardState[9];
+    private int playable;
+    private int sequence;
+    private Player sideToMove = Player.NONE;
+
+    public GameClient(String host, int port, GameListener listener, Events events) throws IOException {
+        this.socket = new Socket(host, port);
+        socket.setTcpNoDelay(true);
+        this.in = new BufferedInputStream(socket.getInputStream(), 256);
+        this.out = socket.getOutputStream();
+        this.listener = listener;
+        this.events = events;
+        clear();
+    }
+
+    /**
+     * Enters the lobby of the server
+     */
+    public void join() throws IOException {
+        send(WireProtocol.JOIN);
+    }
+
+    /**
+     * @param cell index 0-80 of the cell (see {@link Position})
+     */
+    public void move(int cell) throws IOException {
+        if (cell < 0 || cell >= Position.CELLS) throw new IllegalArgumentException("Invalid cell " + cell);
+        send(cell);
+    }
+
+    /**
+     * Asks the server for the complete state of the game
+     */
+    public void resync() throws IOException {
+        send(WireProtocol.RESYNC);
+    }
+
+    /**
+     * @return the player to move as last reported by the server
+     */
+    public Player getSideToMove() {
+        return sideToMove;
+    }
+
+    /**
+     * Reads and reports frames until the connection is closed
+     */
+    @Override
+    public void run() {
+        try {
+            while (WireProtocol.readFrame(in, frame) != -1) apply();
+        } catch (IOException e) {
+            // the connection was closed
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            send(WireProtocol.QUIT);
+        } finally {
+            socket.close();
+        }
+    }
+
+    private void apply() throws IOException {
+        switch (frame[0]) {
+            case WireProtocol.WAITING -> events.waiting();
+            case WireProtocol.START -> {
+                Player side = Player.values()[frame[1]];
+                Player firstTurn = Player.values()[frame[2]];
+                reset(firstTurn);
+                events.started(side, firstTurn);
+            }
+            case WireProtocol.DELTA -> applyDelta();
+            case WireProtocol.SNAPSHOT -> applySnapshot();
+            case WireProtocol.END -> events.ended(Player.values()[frame[1]]);
+            case WireProtocol.LEFT -> events.opponentLeft();
+            case WireProtocol.ERROR -> events.rejected(ProtocolError.values()[frame[1]]);
+            default -> throw new IOException("Unexpected frame type " + frame[0]);
+        }
+    }
+
+    private void applyDelta() throws IOException {
+        int frameSequence = WireProtocol.sequence(frame);
+        if (frameSequence != sequence + 1) {
+            // a delta was missed, the snapshot brings the mirror up to date
+            resync();
+            return;
+        }
+        this.sequence = frameSequence;
+
+        int cell = WireProtocol.deltaCell(frame);
+        int board = Position.boardOf(cell);
+        ButtonState tile = WireProtocol.deltaTile(frame);
+        this.sideToMove = tile == ButtonState.CLAIMED_BLUE ? Player.RED : Player.BLUE;
+        setTile(cell, tile);
+        setBoard(board, WireProtocol.deltaBoard(frame));
+        setPlayable(WireProtocol.deltaPlayable(frame));
+    }
+
+    private void applySnapshot() {
+        this.sequence = WireProtocol.sequence(frame);
+        this.sideToMove = WireProtocol.snapshotSideToMove(frame);
+        for (int cell = 0; cell < Position.CELLS; cell++) setTile(cell, WireProtocol.snapshotTile(frame, cell));
+        for (int board = 0; board < 9; board++) setBoard(board, WireProtocol.snapshotBoard(frame, board));
+        setPlayable(WireProtocol.snapshotPlayable(frame));
+    }
+
+    /**
+     * Reports the empty board of a new game
+     */
+    private void reset(Player firstTurn) {
+        for (int cell = 0; cell < Position.CELLS; cell++) setTile(cell, ButtonState.EMPTY);
+        for (int board = 0; board < 9; board++) setBoard(board, BoardState.UNCLAIMED);
+        setPlayable(ALL_BOARDS);
+        this.sequence = 0;
+        this.sideToMove = firstTurn;
+    }
+
+    /**
+     * Sets the mirror to the state the listener is expected to show before the first game
+     */
+    private void clear() {
+        Arrays.fill(tiles, ButtonState.EMPTY);
+        Arrays.fill(boards, BoardState.UNCLAIMED);
+        this.playable = ALL_BOARDS;
+    }
+
+    private void setTile(int cell, ButtonState state) {
+        if (tiles[cell] == state) return;
+        tiles[cell] = state;
+        listener.cellChanged(cell, state);
+    }
+
+    private void setBoard(int board, BoardState state) {
+        if (boards[board] == state) return;
+        boards[board] = state;
+        listener.boardStateChanged(board, state);
+    }
+
+    private void setPlayable(int boards) {
+        if (playable == boards) return;
+        int previous = playable;
+        this.playable = boards;
+        listener.playableChanged(previous, boards);
+    }
+
+    private void send(int command) throws IOException {
+        synchronized (out) {
+            out.write(command);
+            out.flush();
+        }
+    }
+}
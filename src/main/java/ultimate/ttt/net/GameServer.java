@@ -0,0 +1,293 @@
+package ultimate.ttt.net;
+
+import ultimate.ttt.Player;
+import ultimate.ttt.engine.Position;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Headless TCP server hosting many concurrent games. <br>
+ * Every connection is served by its own thread: a virtual thread if the runtime supports them (Java 21 or newer),
+ * otherwise a platform thread with a small stack. Clients that join are paired in the order they joined, the
+ * first one playing {@link Player#BLUE}; who moves first alternates between games. Moves are validated
+ * against {@link Position}, the same rules {@link ultimate.ttt.UltimateBoard} plays by. <br>
+ * Clients speak either the binary {@link WireProtocol} or a line-based ASCII protocol, recognised by their
+ * first byte. Text client to server:
+ * <pre>
+ * JOIN          enter the lobby, also after a game has ended
+ * MOVE cell     play the cell 0-80 (board * 9 + square, see Position)
+ * STATE         ask for the complete state of the game
+ * QUIT          close the connection
+ * </pre>
+ * Server to text client:
+ * <pre>
+ * WAITING                 waiting for an opponent
+ * START side first        a game started, side and first are BLUE or RED
+ * MOVE player cell        a move was played, sent to both players
+ * STATE ply side tiles boards
+ *                         state of the game, tiles and boards as one character each: . B R (D for drawn boards)
+ * END BLUE|RED|DRAW       the game is over
+ * LEFT                    the opponent disconnected, the game is over
+ * ERROR message           the last command was rejected
+ * </pre>
+ * <pre>
+ * java -cp UltimateTicTacToe.jar ultimate.ttt.net.GameServer --port 7777
+ * </pre>
+ */
+public class GameServer implements AutoCloseable {
+
+    // per-thread stack of the platform threads used before Java 21
+    private static final long PLATFORM_STACK_BYTES = 256 * 1024;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = 7777;
+        int backlog = 4096;
+        for (int i = 0; i < args.length; i++) {
+            String value = i + 1 < args.length ? args[i + 1] : null;
+            switch (args[i]) {
+                case "--port" -> port = Integer.parseInt(require(args[i], value));
+                case "--backlog" -> backlog = Integer.parseInt(require(args[i], value));
+                default -> {
+                    System.err.println("Unknown option " + args[i]);
+                    System.err.println("Options: --port N --backlog N");
+                    System.exit(2);
+                }
+            }
+            i++;
+        }
+
+        GameServer server = new GameServer(port, backlog);
+        server.start();
+        System.out.println("Listening on port " + server.getPort() + " using " + server.threadKind() + " threads");
+        server.acceptor.join();
+    }
+
+    private static String require(String option, String value) {
+        if (value == null) throw new IllegalArgumentException("Missing value for " + option);
+        return value;
+    }
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService connections;
+    private final boolean virtualThreads;
+    private final Thread acceptor;
+    private final Set<Socket> openSockets = ConcurrentHashMap.newKeySet();
+
+    private final ReentrantLock lobbyLock = new ReentrantLock();
+    private Session waiting;
+
+    private final AtomicInteger openConnections = new AtomicInteger();
+    private final AtomicLong gamesStarted = new AtomicLong();
+
+    /**
+     * Binds the server socket, connections are accepted after {@link #start()}
+     * @param port    TCP port, 0 for any free port
+     * @param backlog maximum number of connections waiting to be accepted
+     */
+    public GameServer(int port, int backlog) throws IOException {
+        this.serverSocket = new ServerSocket();
+        serverSocket.setReuseAddress(true);
+        serverSocket.bind(new InetSocketAddress(port), backlog);
+
+        ExecutorService virtual = newVirtualThreadExecutor();
+        this.virtualThreads = virtual != null;
+        this.connections = virtual != null ? virtual : newPlatformThreadExecutor();
+        this.acceptor = new Thread(this::acceptConnections, "game-server-acceptor");
+    }
+
+    public void start() {
+        acceptor.start();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * @return number of currently connected clients
+     */
+    public int getOpenConnections() {
+        return openConnections.get();
+    }
+
+    /**
+     * @return number of games started since the server was started
+     */
+    public long getGamesStarted() {
+        return gamesStarted.get();
+    }
+
+    /**
+     * Stops accepting connections and closes the open ones
+     */
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        // a thread blocked reading a socket does not react to an interrupt
+        for (Socket socket : openSockets) closeQuietly(socket);
+        connections.shutdownNow();
+    }
+
+    private String threadKind() {
+        return virtualThreads ? "virtual" : "platform";
+    }
+
+    private void acceptConnections() {
+        while (!serverSocket.isClosed()) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (SocketException e) {
+                // the server socket was closed
+                return;
+            } catch (IOException e) {
+                System.err.println("Could not accept connection: " + e.getMessage());
+                continue;
+            }
+            try {
+                connections.execute(() -> serve(socket));
+            } catch (RejectedExecutionException e) {
+                // the server was closed
+                closeQuietly(socket);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Reads and executes the commands of one client until it disconnects
+     */
+    private void serve(Socket socket) {
+        openConnections.incrementAndGet();
+        openSockets.add(socket);
+        Session session = null;
+        try {
+            // close() may have missed the socket
+            if (serverSocket.isClosed()) return;
+            session = Session.open(socket);
+            if (session == null) return;
+            while (true) {
+                int command = session.readCommand();
+                if (command == Session.CLOSED || command == WireProtocol.QUIT) return;
+                if (command == WireProtocol.JOIN) join(session);
+                else if (command == WireProtocol.RESYNC) resync(session);
+                else if (command != Session.INVALID) move(session, command);
+                // errors and the waiting message of the command
+                session.flush();
+            }
+        } catch (IOException e) {
+            // the client disconnected
+        } finally {
+            if (session != null) {
+                leave(session);
+                session.close();
+            } else {
+                closeQuietly(socket);
+            }
+            openSockets.remove(socket);
+            openConnections.decrementAndGet();
+        }
+    }
+
+    private void join(Session session) {
+        Match current = session.getMatch();
+        if (current != null && !current.isOver()) {
+            session.sendError(ProtocolError.ALREADY_PLAYING);
+            return;
+        }
+
+        Match match;
+        lobbyLock.lock();
+        try {
+            if (waiting == null || waiting == session) {
+                this.waiting = session;
+                // queued under the lock so the start of a game can not overtake it
+                session.sendWaiting();
+                return;
+            }
+            // the match is registered with both sessions before the lock is released, so an opponent leaving
+            // right now finds it in leave() and ends it
+            long game = gamesStarted.getAndIncrement();
+            match = new Match(waiting, session, game % 2 == 0 ? Player.BLUE : Player.RED);
+            this.waiting = null;
+        } finally {
+            lobbyLock.unlock();
+        }
+        match.flush();
+    }
+
+    private void move(Session session, int cell) {
+        Match match = session.getMatch();
+        if (match == null) {
+            session.sendError(ProtocolError.NOT_IN_GAME);
+            return;
+        }
+        match.move(session, cell);
+    }
+
+    private void resync(Session session) {
+        Match match = session.getMatch();
+        if (match == null) {
+            session.sendError(ProtocolError.NOT_IN_GAME);
+            return;
+        }
+        match.resync(session);
+    }
+
+    /**
+     * Removes a disconnected client from the lobby or ends its game. Taking the lobby lock first makes a game
+     * started with the client at the same time visible here.
+     */
+    private void leave(Session session) {
+        lobbyLock.lock();
+        try {
+            if (waiting == session) this.waiting = null;
+        } finally {
+            lobbyLock.unlock();
+        }
+        Match match = session.getMatch();
+        if (match != null) match.leave(session);
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // nothing left to clean up
+        }
+    }
+
+    /**
+     * @return an executor starting a virtual thread per task, null before Java 21
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private static ExecutorService newPlatformThreadExecutor() {
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(null, runnable, "game-connection-" + counter.incrementAndGet(), PLATFORM_STACK_BYTES);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
@@ -0,0 +1,125 @@
+package ultimate.ttt.net;
+
+import ultimate.ttt.Player;
+import ultimate.ttt.engine.Position;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * One game between two connected clients. <br>
+ * The authoritative state is a {@link Position}: every move is checked against its rules, including the
+ * forced-board rule, before it is applied and announced to both players. Messages are queued under the lock
+ * of the match, which keeps them in the order of the game, and written to the sockets after it is released.
+ */
+final class Match {
+
+    private final Session blue;
+    private final Session red;
+    private final Position position;
+    private final ReentrantLock lock = new ReentrantLock();
+    private boolean over;
+
+    /**
+     * Starts the game and queues the message telling both clients their side, see {@link #flush()}
+     * @param firstTurn {@link Player} who has the first turn
+     */
+    Match(Session blue, Session red, Player firstTurn) {
+        this.blue = blue;
+        this.red = red;
+        this.position = new Position(firstTurn);
+
+        // a move of blue must not reach red before red knows the game started
+        lock.lock();
+        try {
+            blue.join(this, Player.BLUE);
+            red.join(this, Player.RED);
+            blue.sendStart(Player.BLUE, firstTurn);
+            red.sendStart(Player.RED, firstTurn);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes the queued messages of both clients, called without holding the lock
+     */
+    void flush() {
+        blue.flush();
+        red.flush();
+    }
+
+    /**
+     * Plays a move of a client, or tells the client why it was rejected
+     * @param session client making the move
+     * @param cell    index 0-80 of the cell (see {@link Position})
+     */
+    void move(Session session, int cell) {
+        lock.lock();
+        try {
+            if (over) {
+                session.sendError(ProtocolError.GAME_OVER);
+                return;
+            }
+            Player player = session.getPlayer();
+            if (player != position.sideToMove()) {
+                session.sendError(ProtocolError.NOT_YOUR_TURN);
+                return;
+            }
+            if (cell < 0 || cell >= Position.CELLS || !position.isLegal(cell)) {
+                session.sendError(ProtocolError.ILLEGAL_MOVE);
+                return;
+            }
+
+            position.makeMove(cell);
+            blue.sendMove(position);
+            red.sendMove(position);
+
+            if (position.isGameOver()) {
+                this.over = true;
+                blue.sendEnd(position.winner());
+                red.sendEnd(position.winner());
+            }
+        } finally {
+            lock.unlock();
+        }
+        flush();
+    }
+
+    /**
+     * Ends an unfinished game because a client left
+     */
+    void leave(Session session) {
+        Session opponent = session == blue ? red : blue;
+        lock.lock();
+        try {
+            if (over) return;
+            this.over = true;
+            opponent.sendLeft();
+        } finally {
+            lock.unlock();
+        }
+        opponent.flush();
+    }
+
+    /**
+     * Sends the complete state of the game to a client that lost track of it
+     */
+    void resync(Session session) {
+        lock.lock();
+        try {
+            session.sendSnapshot(position);
+        } finally {
+            lock.unlock();
+        }
+        session.flush();
+    }
+
+    boolean isOver() {
+        lock.lock();
+        try {
+            return over;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package ultimate.ttt.net;
+
+/**
+ * Reasons the server rejects a command, sent as text by the text protocol and as the ordinal by {@link WireProtocol}
+ */
+public enum ProtocolError {
+    UNKNOWN_COMMAND("unknown command"),
+    MALFORMED_COMMAND("usage: MOVE cell"),
+    NOT_IN_GAME("not in a game"),
+    ALREADY_PLAYING("already playing"),
+    NOT_YOUR_TURN("not your turn"),
+    ILLEGAL_MOVE("illegal move"),
+    GAME_OVER("game is over");
+
+    private final String message;
+
+    ProtocolError(String message) {
+        this.message = message;
+    }
+
+    public String message() {
+        return message;
+    }
+}
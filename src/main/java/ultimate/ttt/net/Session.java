@@ -0,0 +1,156 @@
+package ultimate.ttt.net;
+
+import ultimate.ttt.Player;
+import ultimate.ttt.engine.Position;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Connection of one client, speaking either the text protocol described in {@link GameServer} or the binary
+ * {@link WireProtocol}. The protocol is recognised by the first byte: a text client starts with {@code JOIN},
+ * a binary one with {@link WireProtocol#JOIN}. <br>
+ * Commands are read by the connection's own thread only, but messages may be sent from the thread of the
+ * opponent's connection as well. The {@code send} methods only encode a message and queue it, so they can be
+ * called while holding the lock of a {@link Match} or of the lobby, which decides the order of the messages.
+ * {@link #flush()} writes the queue to the socket afterwards, without any of those locks held, so a client that
+ * stops reading only blocks the thread writing to it. {@link ReentrantLock} is used instead of
+ * {@code synchronized}, which would pin a virtual thread to its carrier while blocked on the socket.
+ */
+abstract class Session implements AutoCloseable {
+
+    /**
+     * {@link #readCommand()}: end of the connection
+     */
+    static final int CLOSED = -1;
+
+    /**
+     * {@link #readCommand()}: a command that could not be parsed, the reason has already been sent
+     */
+    static final int INVALID = -2;
+
+    private final Socket socket;
+    private final OutputStream out;
+    private final Queue<byte[]> outbox = new ConcurrentLinkedQueue<>();
+    // held by the thread writing the outbox to the socket
+    private final ReentrantLock sendLock = new ReentrantLock();
+
+    // written by the thread that paired the session, read by the session's own thread
+    private volatile Match match;
+    private volatile Player player = Player.NONE;
+
+    Session(Socket socket) throws IOException {
+        this.socket = socket;
+        this.out = socket.getOutputStream();
+    }
+
+    /**
+     * Waits for the first byte of the client and creates the session for its protocol
+     * @return null if the client disconnected without sending anything
+     */
+    static Session open(Socket socket) throws IOException {
+        socket.setTcpNoDelay(true);
+        InputStream in = new BufferedInputStream(socket.getInputStream(), 256);
+        in.mark(1);
+        int first = in.read();
+        if (first == -1) return null;
+        in.reset();
+        return first == WireProtocol.JOIN ? new BinarySession(socket, in) : new TextSession(socket, in);
+    }
+
+    /**
+     * @return a cell 0-80 to move, {@link WireProtocol#JOIN}, {@link WireProtocol#QUIT}, {@link WireProtocol#RESYNC},
+     * {@link #INVALID} or {@link #CLOSED}
+     */
+    abstract int readCommand() throws IOException;
+
+    abstract void sendWaiting();
+
+    /**
+     * @param side      side the client plays
+     * @param firstTurn side making the first move
+     */
+    abstract void sendStart(Player side, Player firstTurn);
+
+    /**
+     * Announces the last move of the position
+     */
+    abstract void sendMove(Position position);
+
+    /**
+     * Sends the complete state of the game
+     */
+    abstract void sendSnapshot(Position position);
+
+    /**
+     * @param winner {@link Player#NONE} for a draw
+     */
+    abstract void sendEnd(Player winner);
+
+    abstract void sendLeft();
+
+    abstract void sendError(ProtocolError error);
+
+    /**
+     * Queues an encoded message, written by the next {@link #flush()}
+     */
+    final void send(byte[] message) {
+        outbox.add(message);
+    }
+
+    /**
+     * Writes the queued messages in the order they were queued. Must not be called while holding the lock of a
+     * {@link Match} or of the lobby. If another thread is already writing to this client, that thread also writes
+     * the messages queued meanwhile. A failure closes the connection, which ends the session's own thread.
+     */
+    final void flush() {
+        while (!outbox.isEmpty()) {
+            if (!sendLock.tryLock()) return;
+            try {
+                byte[] message;
+                while ((message = outbox.poll()) != null) out.write(message);
+            } catch (IOException e) {
+                outbox.clear();
+                close();
+            } finally {
+                sendLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Assigns the session to a game
+     * @param player side the client plays
+     */
+    final void join(Match match, Player player) {
+        this.match = match;
+        this.player = player;
+    }
+
+    final Match getMatch() {
+        return match;
+    }
+
+    final Player getPlayer() {
+        return player;
+    }
+
+    final Socket socket() {
+        return socket;
+    }
+
+    @Override
+    public final void close() {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // nothing left to clean up
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package ultimate.ttt.net;
+
+import ultimate.ttt.BoardState;
+import ultimate.ttt.ButtonState;
+import ultimate.ttt.Player;
+import ultimate.ttt.engine.Position;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Session speaking the line-based text protocol described in {@link GameServer}
+ */
+final class TextSession extends Session {
+
+    private final BufferedReader reader;
+
+    TextSession(Socket socket, InputStream in) throws IOException {
+        super(socket);
+        this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.US_ASCII), 256);
+    }
+
+    @Override
+    int readCommand() throws IOException {
+        String line = reader.readLine();
+        if (line == null) return CLOSED;
+
+        String[] parts = line.trim().split(" +");
+        switch (parts[0]) {
+            case "JOIN":
+                return WireProtocol.JOIN;
+            case "QUIT":
+                return WireProtocol.QUIT;
+            case "STATE":
+                return WireProtocol.RESYNC;
+            case "MOVE":
+                try {
+                    if (parts.length == 2) {
+                        int cell = Integer.parseInt(parts[1]);
+                        if (cell >= 0 && cell < Position.CELLS) return cell;
+                    }
+                } catch (NumberFormatException e) {
+                    // reported below
+                }
+                sendError(ProtocolError.MALFORMED_COMMAND);
+                return INVALID;
+            default:
+                sendError(ProtocolError.UNKNOWN_COMMAND);
+                return INVALID;
+        }
+    }
+
+    @Override
+    void sendWaiting() {
+        sendLine("WAITING");
+    }
+
+    @Override
+    void sendStart(Player side, Player firstTurn) {
+        sendLine("START " + side + " " + firstTurn);
+    }
+
+    @Override
+    void sendMove(Position position) {
+        int cell = position.moveAt(position.ply() - 1);
+        Player mover = position.cellState(cell) == ButtonState.CLAIMED_BLUE ? Player.BLUE : Player.RED;
+        sendLine("MOVE " + mover + " " + cell);
+    }
+
+    @Override
+    void sendSnapshot(Position position) {
+        StringBuilder line = new StringBuilder(110);
+        line.append("STATE ").append(position.ply()).append(' ').append(position.sideToMove()).append(' ');
+        for (int cell = 0; cell < Position.CELLS; cell++) {
+            ButtonState state = position.cellState(cell);
+            line.append(state == ButtonState.CLAIMED_BLUE ? 'B' : state == ButtonState.CLAIMED_RED ? 'R' : '.');
+        }
+        line.append(' ');
+        for (int board = 0; board < 9; board++) {
+            BoardState state = position.boardState(board);
+            line.append(switch (state) {
+                case CLAIMED_BLUE -> 'B';
+                case CLAIMED_RED -> 'R';
+                case DRAW -> 'D';
+                case UNCLAIMED -> '.';
+            });
+        }
+        sendLine(line.toString());
+    }
+
+    @Override
+    void sendEnd(Player winner) {
+        sendLine("END " + (winner == Player.NONE ? "DRAW" : winner.toString()));
+    }
+
+    @Override
+    void sendLeft() {
+        sendLine("LEFT");
+    }
+
+    @Override
+    void sendError(ProtocolError error) {
+        sendLine("ERROR " + error.message());
+    }
+
+    private void sendLine(String line) {
+        send((line + '\n').getBytes(StandardCharsets.US_ASCII));
+    }
+}
@@ -0,0 +1,172 @@
+package ultimate.ttt.net;
+
+import ultimate.ttt.BoardState;
+import ultimate.ttt.ButtonState;
+import ultimate.ttt.Player;
+import ultimate.ttt.engine.Position;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Binary protocol of the {@link GameServer}. <br>
+ * Client to server, every command is one byte: a move is the cell index 0-80 itself (see {@link Position}),
+ * all other commands are {@link #JOIN}, {@link #QUIT} and {@link #RESYNC}. <br>
+ * Server to client, every frame starts with its type byte and has a fixed length ({@link #frameLength(int)}):
+ * <pre>
+ * WAITING                                          1 byte
+ * START    side, first turn ({@link Player} ordinals)     3 bytes
+ * DELTA    seq, cell, tile | board &lt;&lt; 2, playable     6 bytes
+ * SNAPSHOT seq, side to move, 81 tiles, 9 boards, playable  29 bytes
+ * END      winner ({@link Player#NONE} for a draw)       2 bytes
+ * LEFT                                             1 byte
+ * ERROR    {@link ProtocolError} ordinal                  2 bytes
+ * </pre>
+ * Tiles are {@link ButtonState} ordinals and boards {@link BoardState} ordinals, packed into 2 bits each,
+ * low bits first; playable is the 9-bit mask of the local boards the player to move may play in, in 2 bytes,
+ * low byte first. The sequence number is the number of moves played, so a client that misses a delta notices
+ * the gap and asks for a snapshot with {@link #RESYNC}.
+ */
+public final class WireProtocol {
+
+    public static final int JOIN = 0xF0;
+    public static final int QUIT = 0xF1;
+    public static final int RESYNC = 0xF2;
+
+    public static final int WAITING = 0x01;
+    public static final int START = 0x02;
+    public static final int DELTA = 0x03;
+    public static final int SNAPSHOT = 0x04;
+    public static final int END = 0x05;
+    public static final int LEFT = 0x06;
+    public static final int ERROR = 0x07;
+
+    public static final int MAX_FRAME_BYTES = 29;
+
+    // offsets of the packed sections of a snapshot
+    private static final int SNAPSHOT_TILES = 3;
+    private static final int SNAPSHOT_BOARDS = SNAPSHOT_TILES + 21;
+    private static final int SNAPSHOT_PLAYABLE = SNAPSHOT_BOARDS + 3;
+
+    private WireProtocol() {
+    }
+
+    /**
+     * @return number of bytes of a server frame of the given type, including the type byte
+     * @throws IllegalArgumentException if the type is unknown
+     */
+    public static int frameLength(int type) {
+        return switch (type) {
+            case WAITING, LEFT -> 1;
+            case END, ERROR -> 2;
+            case START -> 3;
+            case DELTA -> 6;
+            case SNAPSHOT -> MAX_FRAME_BYTES;
+            default -> throw new IllegalArgumentException("Unknown frame type " + type);
+        };
+    }
+
+    /**
+     * Reads one complete server frame
+     * @param buffer at least {@link #MAX_FRAME_BYTES} long
+     * @return the frame type, -1 at the end of the stream
+     */
+    public static int readFrame(InputStream in, byte[] buffer) throws IOException {
+        int type = in.read();
+        if (type == -1) return -1;
+        buffer[0] = (byte) type;
+        int length = frameLength(type);
+        for (int offset = 1; offset < length; ) {
+            int read = in.read(buffer, offset, length - offset);
+            if (read == -1) throw new EOFException("Truncated frame of type " + type);
+            offset += read;
+        }
+        return type;
+    }
+
+    /**
+     * Encodes the last move of the position
+     * @return frame length
+     */
+    public static int writeDelta(byte[] frame, Position position) {
+        int cell = position.moveAt(position.ply() - 1);
+        int board = Position.boardOf(cell);
+        int playable = position.playableBoards();
+        frame[0] = DELTA;
+        frame[1] = (byte) position.ply();
+        frame[2] = (byte) cell;
+        frame[3] = (byte) (position.cellState(cell).ordinal() | position.boardState(board).ordinal() << 2);
+        frame[4] = (byte) playable;
+        frame[5] = (byte) (playable >>> 8);
+        return 6;
+    }
+
+    /**
+     * Encodes the complete state of the position
+     * @return frame length
+     */
+    public static int writeSnapshot(byte[] frame, Position position) {
+        frame[0] = SNAPSHOT;
+        frame[1] = (byte) position.ply();
+        frame[2] = (byte) position.sideToMove().ordinal();
+        for (int i = SNAPSHOT_TILES; i < SNAPSHOT_PLAYABLE; i++) frame[i] = 0;
+        for (int cell = 0; cell < Position.CELLS; cell++) {
+            pack(frame, SNAPSHOT_TILES, cell, position.cellState(cell).ordinal());
+        }
+        for (int board = 0; board < 9; board++) {
+            pack(frame, SNAPSHOT_BOARDS, board, position.boardState(board).ordinal());
+        }
+        int playable = position.playableBoards();
+        frame[SNAPSHOT_PLAYABLE] = (byte) playable;
+        frame[SNAPSHOT_PLAYABLE + 1] = (byte) (playable >>> 8);
+        return MAX_FRAME_BYTES;
+    }
+
+    public static int sequence(byte[] frame) {
+        return frame[1] & 0xFF;
+    }
+
+    public static int deltaCell(byte[] frame) {
+        return frame[2] & 0xFF;
+    }
+
+    public static ButtonState deltaTile(byte[] frame) {
+        return ButtonState.values()[frame[3] & 0x3];
+    }
+
+    /**
+     * @return state of the board of the changed cell after the move
+     */
+    public static BoardState deltaBoard(byte[] frame) {
+        return BoardState.values()[(frame[3] >>> 2) & 0x3];
+    }
+
+    public static int deltaPlayable(byte[] frame) {
+        return (frame[4] & 0xFF) | (frame[5] & 0x1) << 8;
+    }
+
+    public static Player snapshotSideToMove(byte[] frame) {
+        return Player.values()[frame[2]];
+    }
+
+    public static ButtonState snapshotTile(byte[] frame, int cell) {
+        return ButtonState.values()[unpack(frame, SNAPSHOT_TILES, cell)];
+    }
+
+    public static BoardState snapshotBoard(byte[] frame, int board) {
+        return BoardState.values()[unpack(frame, SNAPSHOT_BOARDS, board)];
+    }
+
+    public static int snapshotPlayable(byte[] frame) {
+        return (frame[SNAPSHOT_PLAYABLE] & 0xFF) | (frame[SNAPSHOT_PLAYABLE + 1] & 0x1) << 8;
+    }
+
+    private static void pack(byte[] frame, int offset, int index, int value) {
+        frame[offset + index / 4] |= (byte) (value << (index % 4) * 2);
+    }
+
+    private static int unpack(byte[] frame, int offset, int index) {
+        return (frame[offset + index / 4] >>> (index % 4) * 2) & 0x3;
+    }
+}
@@ -0,0 +1,171 @@
+package ultimate.ttt.record;
+
+import ultimate.ttt.Player;
+import ultimate.ttt.engine.Position;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streams the games of a record file (see {@link GameRecords}) through a memory-mapped window. <br>
+ * The reader is a cursor: {@link #next()} moves to the following game, whose data is then available from the
+ * accessor methods. No objects are created per game, so millions of games can be iterated in constant memory.
+ * Every game is checked against the rules of {@link Position} as it is read.
+ * <pre>
+ * try (GameRecordReader reader = new GameRecordReader(file)) {
+ *     while (reader.next()) {
+ *         reader.replay(position);
+ *     }
+ * }
+ * </pre>
+ */
+public class GameRecordReader implements Closeable {
+
+    // size of the mapped window, remapped when a record would cross its end
+    private static final long WINDOW_BYTES = 1L << 30;
+
+    private final FileChannel channel;
+    private final long size;
+
+    private MappedByteBuffer window;
+    private long windowStart;
+
+    private int flags;
+    private final byte[] moves = new byte[Position.CELLS];
+    private int moveCount;
+    private long games;
+    // replays every game to check its moves
+    private final Position check = new Position();
+
+    /**
+     * @throws IOException if the file cannot be read or is not a game record file
+     */
+    public GameRecordReader(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            this.size = channel.size();
+
+            mapWindow(0);
+            if (size < GameRecords.HEADER_BYTES) throw notARecordFile(file);
+            for (int i = 0; i < GameRecords.MAGIC.length; i++) {
+                if (window.get(i) != GameRecords.MAGIC[i]) throw notARecordFile(file);
+            }
+            if (window.get(4) != GameRecords.VERSION) {
+                throw new IOException("Unsupported record version " + window.get(4) + " in " + file);
+            }
+            window.position(GameRecords.HEADER_BYTES);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Moves to the next game
+     * @return false if there are no more games
+     * @throws IOException if the file ends in the middle of a record or the record holds an illegal move
+     */
+    public boolean next() throws IOException {
+        long offset = windowStart + window.position();
+        if (offset >= size) return false;
+
+        if (window.remaining() < GameRecords.MAX_RECORD_BYTES && windowStart + window.limit() < size) {
+            mapWindow(offset);
+        }
+        if (window.remaining() < 2) throw truncated(offset);
+
+        flags = window.get() & 0xFF;
+        moveCount = window.get() & 0xFF;
+        if (moveCount > Position.CELLS || window.remaining() < moveCount) throw truncated(offset);
+        window.get(moves, 0, moveCount);
+
+        check.reset(firstTurn());
+        for (int ply = 0; ply < moveCount; ply++) {
+            // isLegal also rejects cells outside 0-80, which includes bytes read as negative numbers
+            if (!check.isLegal(moves[ply])) {
+                throw new IOException("Illegal move " + (moves[ply] & 0xFF) + " at ply " + ply + " of game " + games
+                        + " at byte " + offset);
+            }
+            check.makeMove(moves[ply]);
+        }
+        games++;
+        return true;
+    }
+
+    /**
+     * @return number of games read so far
+     */
+    public long getGamesRead() {
+        return games;
+    }
+
+    public Player firstTurn() {
+        return (flags & 1) == 0 ? Player.BLUE : Player.RED;
+    }
+
+    /**
+     * @return {@link Player#BLUE} or {@link Player#RED} if the game was won, {@link Player#NONE} otherwise
+     */
+    public Player winner() {
+        int result = flags >>> 1 & 3;
+        if (result == GameRecords.RESULT_BLUE) return Player.BLUE;
+        if (result == GameRecords.RESULT_RED) return Player.RED;
+        return Player.NONE;
+    }
+
+    public boolean isDraw() {
+        return (flags >>> 1 & 3) == GameRecords.RESULT_DRAW;
+    }
+
+    /**
+     * @return false if the game was stopped before it was decided
+     */
+    public boolean isFinished() {
+        return (flags >>> 1 & 3) != GameRecords.RESULT_UNFINISHED;
+    }
+
+    public int moveCount() {
+        return moveCount;
+    }
+
+    /**
+     * @return cell index 0-80 of the move at the given ply
+     */
+    public int move(int ply) {
+        return moves[ply];
+    }
+
+    /**
+     * Replays the current game onto an empty position
+     * @param position position to overwrite
+     */
+    public void replay(Position position) {
+        position.reset(firstTurn());
+        for (int ply = 0; ply < moveCount; ply++) {
+            position.makeMove(moves[ply]);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void mapWindow(long offset) throws IOException {
+        long length = Math.min(WINDOW_BYTES, size - offset);
+        this.window = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+        this.windowStart = offset;
+    }
+
+    private static IOException notARecordFile(Path file) {
+        return new IOException("Not a game record file: " + file);
+    }
+
+    private static IOException truncated(long offset) {
+        return new IOException("Truncated game record at byte " + offset);
+    }
+}
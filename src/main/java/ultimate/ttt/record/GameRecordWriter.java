@@ -0,0 +1,72 @@
+package ultimate.ttt.record;
+
+import ultimate.ttt.engine.Position;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Appends games to a file in the format described in {@link GameRecords}. <br>
+ * Not thread-safe; share one writer between threads only with external synchronization.
+ */
+public class GameRecordWriter implements Closeable {
+
+    private final OutputStream out;
+    private final byte[] record = new byte[GameRecords.MAX_RECORD_BYTES];
+
+    /**
+     * Opens the file for appending, creating it with a header if it does not exist or is empty
+     * @throws IOException if the file exists but is not a game record file
+     */
+    public GameRecordWriter(Path file) throws IOException {
+        boolean fresh = !Files.exists(file) || Files.size(file) == 0;
+        if (!fresh) checkHeader(file);
+
+        this.out = new BufferedOutputStream(Files.newOutputStream(file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND), 1 << 16);
+        if (fresh) {
+            out.write(GameRecords.MAGIC);
+            out.write(new byte[] {GameRecords.VERSION, 0, 0, 0});
+        }
+    }
+
+    /**
+     * Appends the game leading to the given position, whether it is finished or not
+     */
+    public void write(Position position) throws IOException {
+        int moves = position.ply();
+        record[0] = (byte) GameRecords.flags(position);
+        record[1] = (byte) moves;
+        for (int ply = 0; ply < moves; ply++) {
+            record[2 + ply] = (byte) position.moveAt(ply);
+        }
+        out.write(record, 0, 2 + moves);
+    }
+
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private static void checkHeader(Path file) throws IOException {
+        byte[] header = new byte[GameRecords.HEADER_BYTES];
+        try (InputStream in = Files.newInputStream(file)) {
+            if (in.readNBytes(header, 0, header.length) != header.length
+                    || !Arrays.equals(Arrays.copyOf(header, 4), GameRecords.MAGIC)
+                    || header[4] != GameRecords.VERSION) {
+                throw new IOException("Not a game record file: " + file);
+            }
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package ultimate.ttt.record;
+
+import ultimate.ttt.Player;
+import ultimate.ttt.engine.Position;
+
+/**
+ * Layout of the binary game record format. <br>
+ * A file starts with an 8-byte header: the magic bytes {@code UTTR}, a version byte and 3 reserved bytes.
+ * It is followed by any number of game records, each of them
+ * <ul>
+ *     <li>1 flag byte: bit 0 is the first player (0 blue, 1 red), bits 1-2 the result (see {@link #result(Position)})</li>
+ *     <li>1 byte with the number of moves n (0-81)</li>
+ *     <li>n bytes with the cell index 0-80 of every move (see {@link Position})</li>
+ * </ul>
+ * Records are only ever appended, so a file can be written by several sessions one after another.
+ */
+public final class GameRecords {
+
+    static final byte[] MAGIC = {'U', 'T', 'T', 'R'};
+    static final byte VERSION = 1;
+    static final int HEADER_BYTES = 8;
+
+    /**
+     * Largest possible record: flags, move count and 81 moves
+     */
+    static final int MAX_RECORD_BYTES = 2 + Position.CELLS;
+
+    static final int RESULT_UNFINISHED = 0;
+    static final int RESULT_BLUE = 1;
+    static final int RESULT_RED = 2;
+    static final int RESULT_DRAW = 3;
+
+    private GameRecords() {
+    }
+
+    /**
+     * @return flag byte of a record for the game leading to the position
+     */
+    static int flags(Position position) {
+        int first = position.firstTurn() == Player.RED ? 1 : 0;
+        return first | result(position) << 1;
+    }
+
+    /**
+     * @return {@link #RESULT_UNFINISHED}, {@link #RESULT_BLUE}, {@link #RESULT_RED} or {@link #RESULT_DRAW}
+     */
+    static int result(Position position) {
+        if (position.winner() == Player.BLUE) return RESULT_BLUE;
+        if (position.winner() == Player.RED) return RESULT_RED;
+        if (position.isDraw()) return RESULT_DRAW;
+        return RESULT_UNFINISHED;
+    }
+}
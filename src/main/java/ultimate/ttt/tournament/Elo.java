@@ -0,0 +1,125 @@
+package ultimate.ttt.tournament;
+
+import java.util.Arrays;
+
+/**
+ * Elo ratings with 95% confidence intervals from game results. <br>
+ * A win counts as one point, a draw as half a point.
+ */
+public final class Elo {
+
+    /**
+     * Rating with the bounds of its 95% confidence interval
+     */
+    public record Rating(double elo, double low, double high) {
+
+        @Override
+        public String toString() {
+            return String.format("%+.1f [%+.1f, %+.1f]", elo, low, high);
+        }
+    }
+
+    private static final double Z_95 = 1.959964;
+    private static final double ELO_PER_NATURAL = 400 / Math.log(10);
+    private static final int ITERATIONS = 10_000;
+
+    private Elo() {
+    }
+
+    /**
+     * @param score average points per game, between 0 and 1
+     * @return the Elo difference expected to give this score, infinite for a perfect score
+     */
+    public static double fromScore(double score) {
+        if (score <= 0) return Double.NEGATIVE_INFINITY;
+        if (score >= 1) return Double.POSITIVE_INFINITY;
+        return -400 * Math.log10(1 / score - 1);
+    }
+
+    /**
+     * Elo difference of one player against another. The interval comes from the variance of the score over
+     * wins, draws and losses, so many draws narrow it.
+     */
+    public static Rating difference(long wins, long draws, long losses) {
+        long games = wins + draws + losses;
+        if (games == 0) return new Rating(0, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+        double score = (wins + draws * 0.5) / games;
+        double variance = (wins * square(1 - score) + draws * square(0.5 - score) + losses * square(score)) / games;
+        if (variance > 0) {
+            double error = Z_95 * Math.sqrt(variance / games);
+            return new Rating(fromScore(score), fromScore(score - error), fromScore(score + error));
+        }
+
+        // all games ended alike, which says little about the variance: use the Wilson score interval instead
+        double z2 = Z_95 * Z_95 / games;
+        double center = (score + z2 / 2) / (1 + z2);
+        double error = Z_95 / (1 + z2) * Math.sqrt(score * (1 - score) / games + z2 / (4 * games));
+        return new Rating(fromScore(score), fromScore(center - error), fromScore(center + error));
+    }
+
+    /**
+     * Fits ratings of all players to the results of a round robin or gauntlet (Bradley-Terry model). <br>
+     * Every pairing that was played counts one extra draw, which keeps ratings finite for players that won or
+     * lost every game. The intervals ignore the uncertainty of the opponents' ratings and are therefore
+     * slightly too narrow.
+     * @param points points[i][j] is the number of points player i scored against player j
+     * @param games  games[i][j] is the number of games between player i and player j
+     * @param anchor player rated 0, or -1 to give the players an average rating of 0
+     */
+    public static Rating[] ratings(double[][] points, long[][] games, int anchor) {
+        int players = points.length;
+        double[][] n = new double[players][players];
+        double[] won = new double[players];
+        for (int i = 0; i < players; i++) {
+            for (int j = 0; j < players; j++) {
+                if (i == j || games[i][j] == 0) continue;
+                n[i][j] = games[i][j] + 1;
+                won[i] += points[i][j] + 0.5;
+            }
+        }
+
+        // minorization-maximization of the likelihood (Hunter 2004)
+        double[] strength = new double[players];
+        Arrays.fill(strength, 1);
+        for (int iteration = 0; iteration < ITERATIONS; iteration++) {
+            double change = 0;
+            for (int i = 0; i < players; i++) {
+                double denominator = 0;
+                for (int j = 0; j < players; j++) {
+                    if (n[i][j] > 0) denominator += n[i][j] / (strength[i] + strength[j]);
+                }
+                if (denominator == 0) continue;
+                double updated = won[i] / denominator;
+                change = Math.max(change, Math.abs(Math.log(updated / strength[i])));
+                strength[i] = updated;
+            }
+            if (change < 1e-10) break;
+        }
+
+        double offset = 0;
+        if (anchor >= 0) {
+            offset = Math.log(strength[anchor]);
+        } else {
+            for (double s : strength) offset += Math.log(s) / players;
+        }
+
+        Rating[] ratings = new Rating[players];
+        for (int i = 0; i < players; i++) {
+            // the inverse Fisher information of the player's own strength
+            double information = 0;
+            for (int j = 0; j < players; j++) {
+                if (n[i][j] == 0) continue;
+                double p = strength[i] / (strength[i] + strength[j]);
+                information += n[i][j] * p * (1 - p);
+            }
+            double elo = (Math.log(strength[i]) - offset) * ELO_PER_NATURAL;
+            double error = i == anchor || information == 0 ? 0 : Z_95 * ELO_PER_NATURAL / Math.sqrt(information);
+            ratings[i] = new Rating(elo, elo - error, elo + error);
+        }
+        return ratings;
+    }
+
+    private static double square(double value) {
+        return value * value;
+    }
+}
@@ -0,0 +1,123 @@
+package ultimate.ttt.tournament;
+
+import ultimate.ttt.ai.Bot;
+import ultimate.ttt.ai.Bots;
+import ultimate.ttt.ai.ParallelMctsBot;
+import ultimate.ttt.ai.TreeSearch;
+import ultimate.ttt.engine.Position;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Runs one of the built-in bots as an engine process speaking the {@link EngineProtocol}, so it can be
+ * entered in a {@link Tournament} next to external engines or used to test one.
+ * <pre>
+ * java -cp UltimateTicTacToe.jar ultimate.ttt.tournament.EngineMain mcts [seed]
+ * </pre>
+ * A bot specification without a budget (see {@link Bots}) plays with the move time of each {@code go} command.
+ * Tree search bots report {@code info playouts <n> pps <playouts per second>} before every move.
+ */
+public class EngineMain {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: EngineMain BOT [SEED]");
+            System.exit(2);
+        }
+        String spec = args[0];
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : System.nanoTime();
+        // fail before the handshake instead of on the first move
+        Bots.close(Bots.create(spec, seed));
+
+        new EngineMain(spec, seed, System.out).run(
+                new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8)));
+    }
+
+    private final String spec;
+    private final PrintStream out;
+    private final Position position = new Position();
+
+    private long seed;
+    private Bot bot;
+    private long botMoveTime = -1;
+
+    public EngineMain(String spec, long seed, PrintStream out) {
+        this.spec = spec;
+        this.seed = seed;
+        this.out = out;
+    }
+
+    /**
+     * Answers commands until {@code quit} or the end of the input
+     */
+    public void run(BufferedReader in) throws IOException {
+        try {
+            answer(in);
+        } finally {
+            if (bot != null) Bots.close(bot);
+        }
+    }
+
+    private void answer(BufferedReader in) throws IOException {
+        String line;
+        while ((line = in.readLine()) != null) {
+            String command = line.trim();
+            if (command.isEmpty()) continue;
+            String word = command.split("\\s+", 2)[0];
+            switch (word) {
+                case EngineProtocol.HELLO -> {
+                    out.println(EngineProtocol.ID_NAME + " " + spec);
+                    out.println(EngineProtocol.HELLO_OK);
+                }
+                case EngineProtocol.IS_READY -> out.println(EngineProtocol.READY_OK);
+                case EngineProtocol.NEW_GAME -> {
+                    // a fresh bot per game, seeded differently every time
+                    if (bot != null) Bots.close(bot);
+                    this.bot = null;
+                    this.seed++;
+                }
+                case EngineProtocol.POSITION -> {
+                    try {
+                        EngineProtocol.parsePosition(command, position);
+                    } catch (IllegalArgumentException e) {
+                        out.println(EngineProtocol.INFO + " string " + e.getMessage());
+                    }
+                }
+                case EngineProtocol.GO -> go(EngineProtocol.parseMoveTime(command));
+                case EngineProtocol.QUIT -> {
+                    out.flush();
+                    return;
+                }
+                default -> out.println(EngineProtocol.INFO + " string unknown command " + word);
+            }
+            out.flush();
+        }
+    }
+
+    private void go(long moveTime) {
+        if (position.isGameOver()) {
+            out.println(EngineProtocol.INFO + " string game is over");
+            return;
+        }
+        if (bot == null || moveTime != botMoveTime) {
+            if (bot != null) Bots.close(bot);
+            this.bot = Bots.create(moveTime > 0 ? Bots.withTimeBudget(spec, moveTime) : spec, seed);
+            this.botMoveTime = moveTime;
+        }
+        int move = bot.chooseMove(position);
+        if (bot instanceof TreeSearch search) {
+            printPlayouts(search.getLastPlayouts(), search.getLastPlayoutsPerSecond());
+        } else if (bot instanceof ParallelMctsBot parallel) {
+            printPlayouts(parallel.getLastPlayouts(), parallel.getLastPlayoutsPerSecond());
+        }
+        out.println(EngineProtocol.BEST_MOVE + " " + move);
+    }
+
+    private void printPlayouts(long playouts, double perSecond) {
+        out.printf("%s playouts %d pps %.0f%n", EngineProtocol.INFO, playouts, perSecond);
+    }
+}
@@ -0,0 +1,114 @@
+package ultimate.ttt.tournament;
+
+import ultimate.ttt.Player;
+import ultimate.ttt.engine.Position;
+
+/**
+ * Line-based text protocol between a tournament and an engine process, modelled on UCI. <br>
+ * The tournament writes commands to the engine's standard input, the engine answers on its standard output:
+ * <ul>
+ *     <li>{@code uti} - the engine answers {@code id name <name>} and then {@code utiok}</li>
+ *     <li>{@code isready} - the engine answers {@code readyok} once it finished all earlier commands</li>
+ *     <li>{@code newgame} - the next position belongs to a new game</li>
+ *     <li>{@code position startpos first BLUE|RED [moves <cell> ...]} - sets the game, every move is a
+ *     cell index 0-80 (see {@link Position}) that has to be legal under the rules of
+ *     {@link ultimate.ttt.UltimateBoard}</li>
+ *     <li>{@code go movetime <milliseconds>} - the engine answers {@code bestmove <cell>} within the time</li>
+ *     <li>{@code quit} - the engine exits</li>
+ * </ul>
+ * Engines may write {@code info ...} lines at any time, the tournament ignores them as well as unknown lines.
+ */
+public final class EngineProtocol {
+
+    public static final String HELLO = "uti";
+    public static final String HELLO_OK = "utiok";
+    public static final String ID_NAME = "id name";
+    public static final String IS_READY = "isready";
+    public static final String READY_OK = "readyok";
+    public static final String NEW_GAME = "newgame";
+    public static final String POSITION = "position";
+    public static final String GO = "go";
+    public static final String MOVE_TIME = "movetime";
+    public static final String BEST_MOVE = "bestmove";
+    public static final String QUIT = "quit";
+    public static final String INFO = "info";
+
+    private EngineProtocol() {
+    }
+
+    /**
+     * @return the {@code position} command describing the game so far
+     */
+    public static String position(Position position) {
+        StringBuilder line = new StringBuilder(24 + position.ply() * 3);
+        line.append(POSITION).append(" startpos first ").append(position.firstTurn());
+        if (position.ply() > 0) {
+            line.append(" moves");
+            for (int ply = 0; ply < position.ply(); ply++) line.append(' ').append(position.moveAt(ply));
+        }
+        return line.toString();
+    }
+
+    /**
+     * Plays the game of a {@code position} command on the given position
+     * @throws IllegalArgumentException if the command is malformed or contains an illegal move
+     */
+    public static void parsePosition(String line, Position position) {
+        String[] words = line.trim().split("\\s+");
+        if (words.length < 4 || !words[0].equals(POSITION) || !words[1].equals("startpos") || !words[2].equals("first")) {
+            throw new IllegalArgumentException("Malformed position command: " + line);
+        }
+        Player firstTurn;
+        try {
+            firstTurn = Player.valueOf(words[3]);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid first player in: " + line, e);
+        }
+        if (firstTurn == Player.NONE) throw new IllegalArgumentException("Invalid first player in: " + line);
+        position.reset(firstTurn);
+
+        if (words.length == 4) return;
+        if (!words[4].equals("moves")) throw new IllegalArgumentException("Malformed position command: " + line);
+        for (int i = 5; i < words.length; i++) {
+            int cell = parseCell(words[i]);
+            if (!position.isLegal(cell)) throw new IllegalArgumentException("Illegal move " + cell + " in: " + line);
+            position.makeMove(cell);
+        }
+    }
+
+    /**
+     * @return the move time of a {@code go} command, 0 if it has none
+     */
+    public static long parseMoveTime(String line) {
+        String[] words = line.trim().split("\\s+");
+        for (int i = 1; i + 1 < words.length; i++) {
+            if (words[i].equals(MOVE_TIME)) {
+                try {
+                    return Long.parseLong(words[i + 1]);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Invalid move time in: " + line, e);
+                }
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @return the cell of a {@code bestmove} answer
+     */
+    public static int parseBestMove(String line) {
+        String[] words = line.trim().split("\\s+");
+        if (words.length < 2 || !words[0].equals(BEST_MOVE)) {
+            throw new IllegalArgumentException("Malformed bestmove answer: " + line);
+        }
+        return parseCell(words[1]);
+    }
+
+    private static int parseCell(String word) {
+        try {
+            return Integer.parseInt(word);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cell " + word, e);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package ultimate.ttt.tournament;
+
+import ultimate.ttt.ai.Bot;
+import ultimate.ttt.engine.Position;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Engine running in its own process, driven through the {@link EngineProtocol}. <br>
+ * The answers of the engine are read by a daemon thread, so a hanging or crashed engine can not block the
+ * caller: every answer has a deadline, after which {@link #chooseMove(Position)} fails with an
+ * {@link IllegalStateException}. An engine that failed should be closed and started again.
+ */
+public class ExternalEngine implements Bot, AutoCloseable {
+
+    private static final long HANDSHAKE_MILLIS = 10_000;
+    // marks the end of the engine's output in the queue
+    private static final String EOF = new String("EOF");
+
+    private final Process process;
+    private final Writer in;
+    private final BlockingQueue<String> lines = new LinkedBlockingQueue<>();
+    private final long moveMillis;
+    private final long marginMillis;
+    private String name;
+
+    /**
+     * Starts the engine and waits for the handshake
+     * @param command      program and arguments of the engine
+     * @param moveMillis   time per move sent with every {@code go}
+     * @param marginMillis time allowed on top for the answer to arrive
+     */
+    public ExternalEngine(List<String> command, long moveMillis, long marginMillis) throws IOException {
+        this.moveMillis = moveMillis;
+        this.marginMillis = marginMillis;
+        this.process = new ProcessBuilder(command)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        this.in = new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8);
+        this.name = String.join(" ", command);
+
+        Thread reader = new Thread(this::readOutput, "engine-" + process.pid());
+        reader.setDaemon(true);
+        reader.start();
+
+        try {
+            send(EngineProtocol.HELLO);
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(HANDSHAKE_MILLIS);
+            String line;
+            while (!(line = await(deadline)).equals(EngineProtocol.HELLO_OK)) {
+                if (line.startsWith(EngineProtocol.ID_NAME + " ")) {
+                    this.name = line.substring(EngineProtocol.ID_NAME.length() + 1).trim();
+                }
+            }
+        } catch (RuntimeException | IOException e) {
+            process.destroyForcibly();
+            throw e;
+        }
+    }
+
+    /**
+     * @return the name the engine reported, or its command line
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Tells the engine that a new game starts and waits until it is ready
+     */
+    public void newGame() {
+        try {
+            send(EngineProtocol.NEW_GAME);
+            send(EngineProtocol.IS_READY);
+        } catch (IOException e) {
+            throw new IllegalStateException("Engine " + name + " closed its input", e);
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(HANDSHAKE_MILLIS);
+        while (!await(deadline).equals(EngineProtocol.READY_OK)) {
+            // skip info and stale lines
+        }
+    }
+
+    @Override
+    public int chooseMove(Position position) {
+        // answers that arrived after an earlier deadline must not be taken for this move
+        lines.removeIf(line -> line != EOF);
+        long start = System.nanoTime();
+        try {
+            send(EngineProtocol.position(position));
+            send(EngineProtocol.GO + " " + EngineProtocol.MOVE_TIME + " " + moveMillis);
+        } catch (IOException e) {
+            throw new IllegalStateException("Engine " + name + " closed its input", e);
+        }
+
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(moveMillis + marginMillis);
+        String line;
+        while (!(line = await(deadline)).startsWith(EngineProtocol.BEST_MOVE)) {
+            // skip info lines
+        }
+        return EngineProtocol.parseBestMove(line);
+    }
+
+    @Override
+    public void close() {
+        try {
+            send(EngineProtocol.QUIT);
+            if (process.waitFor(1, TimeUnit.SECONDS)) return;
+        } catch (IOException e) {
+            // the engine is gone already
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        process.destroyForcibly();
+    }
+
+    private void send(String command) throws IOException {
+        in.write(command);
+        in.write('\n');
+        in.flush();
+    }
+
+    /**
+     * @return the next line of the engine
+     * @throws IllegalStateException if the deadline passed or the engine exited
+     */
+    private String await(long deadline) {
+        String line;
+        try {
+            line = lines.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for engine " + name, e);
+        }
+        if (line == null) throw new IllegalStateException("Engine " + name + " timed out");
+        if (line == EOF) {
+            lines.add(EOF);
+            throw new IllegalStateException("Engine " + name + " exited");
+        }
+        return line;
+    }
+
+    private void readOutput() {
+        try (BufferedReader out = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = out.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty()) lines.add(line);
+            }
+        } catch (IOException e) {
+            // the process was destroyed
+        } finally {
+            lines.add(EOF);
+        }
+    }
+}
@@ -0,0 +1,422 @@
+package ultimate.ttt.tournament;
+
+import ultimate.ttt.Player;
+import ultimate.ttt.ai.Bot;
+import ultimate.ttt.ai.Bots;
+import ultimate.ttt.engine.Position;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Headless tournament between built-in bots and external engines speaking the {@link EngineProtocol}. <br>
+ * Every pairing plays its games in couples from the same random opening with the first turn swapped, and the
+ * games of all pairings are interleaved so the standings printed along the way stay balanced. Every move has to
+ * arrive within the move time plus a margin, otherwise the player loses on time; illegal moves and crashed
+ * engines lose as well, and a crashed engine is started again for the next game. <br>
+ * Participants are given as {@code [name=]spec}, where spec is a bot specification of {@link Bots} or
+ * {@code cmd:<command line>} for an engine process.
+ * <pre>
+ * java -cp UltimateTicTacToe.jar ultimate.ttt.tournament.Tournament --engine mcts --engine alphabeta --games 1000
+ * java -cp UltimateTicTacToe.jar ultimate.ttt.tournament.Tournament --mode gauntlet --movetime 50 \
+ *     --engine "new=cmd:java -cp new.jar ultimate.ttt.tournament.EngineMain mcts" --engine mcts --engine alphabeta
+ * </pre>
+ */
+public class Tournament {
+
+    private static final String COMMAND_PREFIX = "cmd:";
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        List<Participant> participants = new ArrayList<>();
+        String mode = "roundrobin";
+        long games = 100;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long moveMillis = 100;
+        long marginMillis = 50;
+        int randomPlies = 2;
+        long report = 1000;
+        long seed = 1;
+        Path out = null;
+
+        for (int i = 0; i < args.length; i++) {
+            String value = i + 1 < args.length ? args[i + 1] : null;
+            switch (args[i]) {
+                case "--engine" -> participants.add(Participant.parse(require(args[i], value)));
+                case "--mode" -> mode = require(args[i], value);
+                case "--games" -> games = Long.parseLong(require(args[i], value));
+                case "--threads" -> threads = Integer.parseInt(require(args[i], value));
+                case "--movetime" -> moveMillis = Long.parseLong(require(args[i], value));
+                case "--margin" -> marginMillis = Long.parseLong(require(args[i], value));
+                case "--random-plies" -> randomPlies = Integer.parseInt(require(args[i], value));
+                case "--report" -> report = Long.parseLong(require(args[i], value));
+                case "--seed" -> seed = Long.parseLong(require(args[i], value));
+                case "--out" -> out = Path.of(require(args[i], value));
+                default -> {
+                    System.err.println("Unknown option " + args[i]);
+                    System.err.println("Options: --engine [NAME=]BOT|cmd:COMMAND (twice or more) --mode roundrobin|gauntlet --games N (per pairing) --threads N --movetime MS --margin MS --random-plies N --report N --seed N --out FILE");
+                    System.exit(2);
+                }
+            }
+            i++;
+        }
+
+        if (participants.size() < 2) throw new IllegalArgumentException("At least two --engine options are needed");
+        if (!mode.equals("roundrobin") && !mode.equals("gauntlet")) {
+            throw new IllegalArgumentException("--mode must be roundrobin or gauntlet");
+        }
+        if (moveMillis <= 0) throw new IllegalArgumentException("--movetime must be positive");
+        for (Participant participant : participants) {
+            // fail fast on invalid specifications instead of inside the workers
+            if (!participant.isExternal()) Bots.close(Bots.create(participant.spec(), seed));
+        }
+
+        Tournament tournament = new Tournament(participants, mode.equals("gauntlet"), games, threads, seed);
+        tournament.setTimeControl(moveMillis, marginMillis);
+        tournament.setRandomPlies(randomPlies);
+        tournament.setReportInterval(report);
+        tournament.run(out);
+    }
+
+    private static String require(String option, String value) {
+        if (value == null) throw new IllegalArgumentException("Missing value for " + option);
+        return value;
+    }
+
+    /**
+     * Entrant of the tournament
+     * @param spec bot specification of {@link Bots}, or {@code cmd:} followed by the engine's command line
+     */
+    public record Participant(String name, String spec) {
+
+        static Participant parse(String text) {
+            int equals = text.indexOf('=');
+            // a command line may contain '=' itself
+            if (equals > 0 && !text.startsWith(COMMAND_PREFIX)) {
+                return new Participant(text.substring(0, equals), text.substring(equals + 1));
+            }
+            return new Participant(text, text);
+        }
+
+        boolean isExternal() {
+            return spec.startsWith(COMMAND_PREFIX);
+        }
+
+        List<String> command() {
+            return Arrays.asList(spec.substring(COMMAND_PREFIX.length()).trim().split("\\s+"));
+        }
+    }
+
+    /**
+     * Why a game ended
+     */
+    private enum Reason {
+        NORMAL, TIME, ILLEGAL, CRASH
+    }
+
+    private final List<Participant> participants;
+    private final int[][] pairings;
+    private final long gamesPerPairing;
+    private final long totalGames;
+    private final int threads;
+    private final long seed;
+    private final boolean gauntlet;
+
+    private long moveMillis = 100;
+    private long marginMillis = 50;
+    private int randomPlies = 2;
+    private long reportInterval = 1000;
+
+    private final AtomicLong nextGame = new AtomicLong();
+    private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+
+    // results, guarded by this
+    private final long[] wins;
+    private final long[] draws;
+    private final long[] losses;
+    private final long[] forfeits;
+    private long finishedGames;
+    private Writer writer;
+    private long start;
+
+    /**
+     * @param gauntlet        true to play the first participant against every other, false for a round robin
+     * @param gamesPerPairing games of every pairing, rounded up to an even number
+     */
+    public Tournament(List<Participant> participants, boolean gauntlet, long gamesPerPairing, int threads, long seed) {
+        this.participants = List.copyOf(participants);
+        this.gauntlet = gauntlet;
+        this.gamesPerPairing = gamesPerPairing + (gamesPerPairing & 1);
+        this.threads = threads;
+        this.seed = seed;
+
+        List<int[]> pairs = new ArrayList<>();
+        for (int a = 0; a < participants.size(); a++) {
+            for (int b = a + 1; b < participants.size(); b++) {
+                if (!gauntlet || a == 0) pairs.add(new int[]{a, b});
+            }
+        }
+        this.pairings = pairs.toArray(new int[0][]);
+        this.totalGames = pairings.length * this.gamesPerPairing;
+
+        this.wins = new long[pairings.length];
+        this.draws = new long[pairings.length];
+        this.losses = new long[pairings.length];
+        this.forfeits = new long[participants.size()];
+    }
+
+    /**
+     * @param moveMillis   time for every move
+     * @param marginMillis time allowed on top before a move is lost on time
+     */
+    public void setTimeControl(long moveMillis, long marginMillis) {
+        this.moveMillis = moveMillis;
+        this.marginMillis = marginMillis;
+    }
+
+    /**
+     * @param randomPlies random moves played before the participants take over, for varied openings
+     */
+    public void setRandomPlies(int randomPlies) {
+        this.randomPlies = randomPlies;
+    }
+
+    /**
+     * @param reportInterval number of games between printed standings
+     */
+    public void setReportInterval(long reportInterval) {
+        this.reportInterval = reportInterval;
+    }
+
+    /**
+     * Plays all games and prints the standings
+     * @param out file for one CSV line per game, null for none
+     */
+    public void run(Path out) throws IOException, InterruptedException {
+        System.out.printf("%d participants, %d pairings, %d games, %d ms per move, %d threads%n",
+                participants.size(), pairings.length, totalGames, moveMillis, threads);
+        this.start = System.nanoTime();
+        if (out != null) {
+            this.writer = new BufferedWriter(Files.newBufferedWriter(out, StandardCharsets.UTF_8), 1 << 16);
+            writer.write("game,first,second,result,reason,plies,moves\n");
+        }
+
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        try {
+            for (int i = 0; i < threads; i++) workers.execute(new Worker());
+            workers.shutdown();
+            while (!workers.awaitTermination(1, TimeUnit.MINUTES)) {
+                // keep waiting, a tournament may run for hours
+            }
+        } finally {
+            workers.shutdownNow();
+            if (writer != null) writer.close();
+        }
+
+        if (failure.get() != null) throw new IllegalStateException("Tournament failed", failure.get());
+        printStandings();
+    }
+
+    /**
+     * Plays games until all are taken, keeping its engine processes between games
+     */
+    private class Worker implements Runnable {
+
+        private final ExternalEngine[] engines = new ExternalEngine[participants.size()];
+
+        @Override
+        public void run() {
+            try {
+                long game;
+                while ((game = nextGame.getAndIncrement()) < totalGames) playGame(game);
+            } catch (IOException e) {
+                failure.compareAndSet(null, new IllegalStateException(e));
+                nextGame.set(totalGames);
+            } catch (RuntimeException e) {
+                failure.compareAndSet(null, e);
+                // let the other workers stop early
+                nextGame.set(totalGames);
+            } finally {
+                for (ExternalEngine engine : engines) {
+                    if (engine != null) engine.close();
+                }
+            }
+        }
+
+        private void playGame(long game) throws IOException {
+            long couple = game / 2;
+            int pairing = (int) (couple % pairings.length);
+            long round = couple / pairings.length;
+            // both games of a couple start from the same opening
+            long openingSeed = (seed * 0x9E3779B97F4A7C15L + pairing) * 0x9E3779B97F4A7C15L + round;
+            long gameSeed = openingSeed * 31 + game;
+            boolean aFirst = game % 2 == 0;
+            int first = pairings[pairing][aFirst ? 0 : 1];
+            int second = pairings[pairing][aFirst ? 1 : 0];
+
+            Position position = new Position(Player.BLUE);
+            SplittableRandom random = new SplittableRandom(openingSeed);
+            int[] moves = new int[Position.CELLS];
+            for (int ply = 0; ply < randomPlies && !position.isGameOver(); ply++) {
+                position.makeMove(moves[random.nextInt(position.legalMoves(moves))]);
+            }
+
+            Bot blue = engine(first, gameSeed);
+            Bot red = engine(second, ~gameSeed);
+            try {
+                play(game, pairing, aFirst, first, second, position, blue, red);
+            } finally {
+                Bots.close(blue);
+                Bots.close(red);
+            }
+        }
+
+        private void play(long game, int pairing, boolean aFirst, int first, int second, Position position,
+                          Bot blue, Bot red) throws IOException {
+
+            Reason reason = Reason.NORMAL;
+            Player loser = Player.NONE;
+            long limit = TimeUnit.MILLISECONDS.toNanos(moveMillis + marginMillis);
+            while (!position.isGameOver()) {
+                Player side = position.sideToMove();
+                int participant = side == Player.BLUE ? first : second;
+                Bot bot = side == Player.BLUE ? blue : red;
+
+                int move;
+                long moveStart = System.nanoTime();
+                try {
+                    move = bot.chooseMove(position);
+                } catch (RuntimeException e) {
+                    reason = System.nanoTime() - moveStart > limit ? Reason.TIME : Reason.CRASH;
+                    loser = side;
+                    restart(participant);
+                    break;
+                }
+                if (System.nanoTime() - moveStart > limit) {
+                    reason = Reason.TIME;
+                    loser = side;
+                    break;
+                }
+                if (!position.isLegal(move)) {
+                    reason = Reason.ILLEGAL;
+                    loser = side;
+                    break;
+                }
+                position.makeMove(move);
+            }
+
+            Player winner = loser == Player.NONE ? position.winner() : loser == Player.BLUE ? Player.RED : Player.BLUE;
+            int forfeiter = loser == Player.NONE ? -1 : loser == Player.BLUE ? first : second;
+            record(game, pairing, aFirst, first, second, winner, reason, forfeiter, position);
+        }
+
+        /**
+         * @return a fresh built-in bot, or the running process of an external engine
+         */
+        private Bot engine(int participant, long gameSeed) throws IOException {
+            Participant entrant = participants.get(participant);
+            if (!entrant.isExternal()) return Bots.create(Bots.withTimeBudget(entrant.spec(), moveMillis), gameSeed);
+
+            if (engines[participant] == null) {
+                engines[participant] = new ExternalEngine(entrant.command(), moveMillis, marginMillis);
+            }
+            try {
+                engines[participant].newGame();
+            } catch (RuntimeException e) {
+                // the engine died since the last game, give it one more start
+                restart(participant);
+                engines[participant] = new ExternalEngine(entrant.command(), moveMillis, marginMillis);
+                engines[participant].newGame();
+            }
+            return engines[participant];
+        }
+
+        private void restart(int participant) {
+            if (engines[participant] == null) return;
+            engines[participant].close();
+            engines[participant] = null;
+        }
+    }
+
+    private synchronized void record(long game, int pairing, boolean aFirst, int first, int second, Player winner,
+                                     Reason reason, int forfeiter, Position position) throws IOException {
+        Player aSide = aFirst ? Player.BLUE : Player.RED;
+        if (winner == Player.NONE) draws[pairing]++;
+        else if (winner == aSide) wins[pairing]++;
+        else losses[pairing]++;
+        if (forfeiter >= 0) forfeits[forfeiter]++;
+
+        if (writer != null) {
+            StringBuilder line = new StringBuilder(256);
+            line.append(game).append(',')
+                    .append(participants.get(first).name()).append(',')
+                    .append(participants.get(second).name()).append(',')
+                    .append(winner == Player.BLUE ? "1-0" : winner == Player.RED ? "0-1" : "1/2-1/2").append(',')
+                    .append(reason.name().toLowerCase()).append(',')
+                    .append(position.ply()).append(',');
+            for (int ply = 0; ply < position.ply(); ply++) {
+                if (ply > 0) line.append(' ');
+                line.append(position.moveAt(ply));
+            }
+            writer.write(line.append('\n').toString());
+        }
+
+        finishedGames++;
+        if (finishedGames % reportInterval == 0 && finishedGames < totalGames) printStandings();
+    }
+
+    private synchronized void printStandings() {
+        int players = participants.size();
+        double[][] points = new double[players][players];
+        long[][] games = new long[players][players];
+        long[] played = new long[players];
+        double[] scored = new double[players];
+        for (int p = 0; p < pairings.length; p++) {
+            int a = pairings[p][0];
+            int b = pairings[p][1];
+            long n = wins[p] + draws[p] + losses[p];
+            double aPoints = wins[p] + draws[p] * 0.5;
+            points[a][b] += aPoints;
+            points[b][a] += n - aPoints;
+            games[a][b] += n;
+            games[b][a] += n;
+            played[a] += n;
+            played[b] += n;
+            scored[a] += aPoints;
+            scored[b] += n - aPoints;
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%n%d/%d games in %.1f s (%.1f games/s)%n",
+                finishedGames, totalGames, seconds, finishedGames / seconds);
+        System.out.printf("%-4s %-24s %-30s %8s %7s %9s%n", "rank", "name", "elo [95%]", "games", "score", "forfeits");
+        Elo.Rating[] ratings = Elo.ratings(points, games, gauntlet ? 0 : -1);
+        Integer[] order = new Integer[players];
+        for (int i = 0; i < players; i++) order[i] = i;
+        Arrays.sort(order, (x, y) -> Double.compare(ratings[y].elo(), ratings[x].elo()));
+        for (int rank = 0; rank < players; rank++) {
+            int i = order[rank];
+            System.out.printf("%-4d %-24s %-30s %8d %6.1f%% %9d%n", rank + 1, participants.get(i).name(), ratings[i],
+                    played[i], played[i] == 0 ? 0 : 100 * scored[i] / played[i], forfeits[i]);
+        }
+
+        System.out.printf("%-24s %-24s %7s %7s %7s %s%n", "player", "opponent", "wins", "draws", "losses", "elo difference [95%]");
+        for (int p = 0; p < pairings.length; p++) {
+            System.out.printf("%-24s %-24s %7d %7d %7d %s%n",
+                    participants.get(pairings[p][0]).name(), participants.get(pairings[p][1]).name(),
+                    wins[p], draws[p], losses[p], Elo.difference(wins[p], draws[p], losses[p]));
+        }
+    }
+}
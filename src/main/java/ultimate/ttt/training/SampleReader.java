@@ -0,0 +1,142 @@
+package ultimate.ttt.training;
+
+import ultimate.ttt.Player;
+import ultimate.ttt.engine.Position;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Streams the samples of a shard (see {@link TrainingSamples}), compressed or not. <br>
+ * Like {@link ultimate.ttt.record.GameRecordReader} the reader is a cursor: {@link #next()} moves to the
+ * following sample, whose data is then available from the accessor methods.
+ * <pre>
+ * try (SampleReader reader = new SampleReader(shard)) {
+ *     while (reader.next()) {
+ *         reader.replay(position);
+ *         reader.policy(policy);
+ *     }
+ * }
+ * </pre>
+ */
+public class SampleReader implements Closeable {
+
+    private final InputStream in;
+    private final byte[] sample = new byte[TrainingSamples.SAMPLE_BYTES];
+    private long samples;
+
+    /**
+     * @throws IOException if the file cannot be read or is not a shard
+     */
+    public SampleReader(Path file) throws IOException {
+        InputStream stream = new BufferedInputStream(Files.newInputStream(file), 1 << 16);
+        try {
+            // GZIP streams start with 1f 8b
+            stream.mark(2);
+            boolean compressed = stream.read() == 0x1f && stream.read() == 0x8b;
+            stream.reset();
+            this.in = compressed ? new BufferedInputStream(new GZIPInputStream(stream, 1 << 16), 1 << 16) : stream;
+
+            byte[] header = new byte[TrainingSamples.HEADER_BYTES];
+            if (in.readNBytes(header, 0, header.length) != header.length
+                    || !Arrays.equals(Arrays.copyOf(header, 4), TrainingSamples.MAGIC)) {
+                throw new IOException("Not a training shard: " + file);
+            }
+            if (header[4] != TrainingSamples.VERSION) {
+                throw new IOException("Unsupported shard version " + header[4] + " in " + file);
+            }
+        } catch (IOException e) {
+            stream.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Moves to the next sample
+     * @return false if there are no more samples
+     * @throws IOException if the file ends in the middle of a sample
+     */
+    public boolean next() throws IOException {
+        int read = in.readNBytes(sample, 0, sample.length);
+        if (read == 0) return false;
+        if (read < sample.length) throw new IOException("Truncated sample " + samples);
+        samples++;
+        return true;
+    }
+
+    /**
+     * @return the bytes of the current sample, valid until the next call of {@link #next()}
+     */
+    byte[] rawSample() {
+        return sample;
+    }
+
+    /**
+     * @return number of samples read so far
+     */
+    public long getSamplesRead() {
+        return samples;
+    }
+
+    public Player firstTurn() {
+        return (sample[0] & 1) == 0 ? Player.BLUE : Player.RED;
+    }
+
+    /**
+     * @return winner of the game, {@link Player#NONE} for a draw
+     */
+    public Player winner() {
+        int result = sample[0] >>> 1 & 3;
+        if (result == TrainingSamples.RESULT_BLUE) return Player.BLUE;
+        if (result == TrainingSamples.RESULT_RED) return Player.RED;
+        return Player.NONE;
+    }
+
+    public int moveCount() {
+        return sample[1] & 0xFF;
+    }
+
+    /**
+     * @return result of the game for the player to move in the sample: 1 win, 0 draw, -1 loss
+     */
+    public int value() {
+        Player winner = winner();
+        if (winner == Player.NONE) return 0;
+        // the first player moves at even plies
+        boolean firstToMove = moveCount() % 2 == 0;
+        return (winner == firstTurn()) == firstToMove ? 1 : -1;
+    }
+
+    /**
+     * Replays the moves of the current sample onto an empty position
+     * @param position position to overwrite
+     */
+    public void replay(Position position) {
+        position.reset(firstTurn());
+        for (int ply = 0; ply < moveCount(); ply++) {
+            position.makeMove(sample[2 + ply]);
+        }
+    }
+
+    /**
+     * @param policy receives the search policy indexed by cell, {@link Position#CELLS} entries
+     */
+    public void policy(float[] policy) {
+        int offset = 2 + Position.CELLS;
+        for (int cell = 0; cell < Position.CELLS; cell++) {
+            int value = (sample[offset + 2 * cell] & 0xFF) << 8 | sample[offset + 2 * cell + 1] & 0xFF;
+            policy[cell] = value / (float) TrainingSamples.POLICY_SCALE;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
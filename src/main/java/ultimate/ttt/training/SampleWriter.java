@@ -0,0 +1,86 @@
+package ultimate.ttt.training;
+
+import ultimate.ttt.Player;
+import ultimate.ttt.engine.Position;
+import ultimate.ttt.engine.Symmetry;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes one shard of training samples in the format described in {@link TrainingSamples}. <br>
+ * Samples are streamed to the file as they are written. Not thread-safe.
+ */
+public class SampleWriter implements Closeable {
+
+    private final OutputStream out;
+    private final byte[] sample = new byte[TrainingSamples.SAMPLE_BYTES];
+    private long samples;
+
+    /**
+     * Creates the file, replacing an existing one
+     * @param compress true to write a GZIP stream
+     */
+    public SampleWriter(Path file, boolean compress) throws IOException {
+        OutputStream stream = Files.newOutputStream(file);
+        this.out = compress
+                ? new BufferedOutputStream(new GZIPOutputStream(stream, 1 << 16), 1 << 16)
+                : new BufferedOutputStream(stream, 1 << 16);
+        out.write(TrainingSamples.MAGIC);
+        out.write(new byte[] {TrainingSamples.VERSION, 0, 0, 0});
+    }
+
+    /**
+     * Appends a position of a finished game, seen through a symmetry
+     * @param position position reached in the game, not over
+     * @param policy   search policy of the position indexed by cell, summing up to 1
+     * @param winner   winner of the game, {@link Player#NONE} for a draw
+     * @param symmetry see {@link Symmetry}, {@link Symmetry#IDENTITY} for the position as it is
+     */
+    public void write(Position position, float[] policy, Player winner, int symmetry) throws IOException {
+        int moves = position.ply();
+        Arrays.fill(sample, (byte) 0);
+        sample[0] = (byte) TrainingSamples.flags(position.firstTurn(), winner);
+        sample[1] = (byte) moves;
+        for (int ply = 0; ply < moves; ply++) {
+            sample[2 + ply] = (byte) Symmetry.cell(symmetry, position.moveAt(ply));
+        }
+
+        int offset = 2 + Position.CELLS;
+        for (int cell = 0; cell < Position.CELLS; cell++) {
+            int value = Math.round(Math.min(Math.max(policy[cell], 0f), 1f) * TrainingSamples.POLICY_SCALE);
+            int target = offset + 2 * Symmetry.cell(symmetry, cell);
+            sample[target] = (byte) (value >>> 8);
+            sample[target + 1] = (byte) value;
+        }
+        out.write(sample);
+        samples++;
+    }
+
+    /**
+     * Appends a sample as read by {@link SampleReader}
+     * @param sample {@link TrainingSamples#SAMPLE_BYTES} bytes
+     */
+    void writeRaw(byte[] sample) throws IOException {
+        out.write(sample, 0, TrainingSamples.SAMPLE_BYTES);
+        samples++;
+    }
+
+    /**
+     * @return number of samples written so far
+     */
+    public long getSamples() {
+        return samples;
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
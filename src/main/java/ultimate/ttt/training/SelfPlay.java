@@ -0,0 +1,494 @@
+package ultimate.ttt.training;
+
+import ultimate.ttt.Player;
+import ultimate.ttt.ai.Bot;
+import ultimate.ttt.ai.Bots;
+import ultimate.ttt.ai.TreeSearch;
+import ultimate.ttt.engine.Position;
+import ultimate.ttt.engine.Symmetry;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.SplittableRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Headless self-play producing training data for a {@link ultimate.ttt.ai.NeuralNetwork}. <br>
+ * One search bot plays both sides of every game. Each position becomes a sample holding the position, the
+ * share of the search's root visits per move as policy and the final result of the game (see
+ * {@link TrainingSamples}); with augmentation every position is written once per {@link Symmetry}. During the
+ * first plies moves are drawn in proportion to their visits instead of taking the most visited one, so games
+ * with the same bot differ.
+ * <p>
+ * Games are played in parallel and their samples streamed in game order into shards of a fixed number of
+ * samples, so the output only depends on the settings, not on the number of threads. A shard is written under a
+ * temporary name and renamed once full; the directory's {@code manifest.properties} then records the settings,
+ * the finished shards and the game to continue with. Running the same command again after an interruption
+ * resumes from there, and a larger {@code --games} extends a finished dataset. The samples at the end of a run that
+ * do not fill a shard are kept in a file ending in {@code .partial}, which the next run with a larger
+ * {@code --games} completes first, so every finished shard has the same size.
+ * <pre>
+ * java -cp UltimateTicTacToe.jar ultimate.ttt.training.SelfPlay --bot mcts:800 --games 100000 --compression gzip --out selfplay
+ * </pre>
+ */
+public class SelfPlay {
+
+    static final String MANIFEST = "manifest.properties";
+
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+    private static final String PARTIAL_SUFFIX = ".partial";
+    // marks the end of a worker's games in the queue
+    private static final PlayedGame END = new PlayedGame(-1, null, null);
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String bot = "mcts:800";
+        long games = 1000;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long seed = 1;
+        int shardSamples = 100_000;
+        String compression = "none";
+        int symmetries = Symmetry.COUNT;
+        int temperaturePlies = 10;
+        Path out = Path.of("selfplay");
+
+        for (int i = 0; i < args.length; i++) {
+            String value = i + 1 < args.length ? args[i + 1] : null;
+            switch (args[i]) {
+                case "--bot" -> bot = require(args[i], value);
+                case "--games" -> games = Long.parseLong(require(args[i], value));
+                case "--threads" -> threads = Integer.parseInt(require(args[i], value));
+                case "--seed" -> seed = Long.parseLong(require(args[i], value));
+                case "--shard-samples" -> shardSamples = Integer.parseInt(require(args[i], value));
+                case "--compression" -> compression = require(args[i], value);
+                case "--symmetries" -> symmetries = Integer.parseInt(require(args[i], value));
+                case "--temperature-plies" -> temperaturePlies = Integer.parseInt(require(args[i], value));
+                case "--out" -> out = Path.of(require(args[i], value));
+                default -> {
+                    System.err.println("Unknown option " + args[i]);
+                    System.err.println("Options: --bot BOT --games N --threads N --seed N --shard-samples N --compression none|gzip --symmetries 1|8 --temperature-plies N --out DIR");
+                    System.exit(2);
+                }
+            }
+            i++;
+        }
+
+        if (!compression.equals("none") && !compression.equals("gzip")) {
+            throw new IllegalArgumentException("--compression must be none or gzip");
+        }
+        if (symmetries != 1 && symmetries != Symmetry.COUNT) {
+            throw new IllegalArgumentException("--symmetries must be 1 or " + Symmetry.COUNT);
+        }
+        if (shardSamples < 1) throw new IllegalArgumentException("--shard-samples must be positive");
+
+        Settings settings = new Settings(bot, seed, shardSamples, compression.equals("gzip"), symmetries, temperaturePlies);
+        new SelfPlay(out, settings, threads).run(games);
+    }
+
+    private static String require(String option, String value) {
+        if (value == null) throw new IllegalArgumentException("Missing value for " + option);
+        return value;
+    }
+
+    private final Path directory;
+    private final Settings settings;
+    private final int threads;
+
+    private final AtomicLong nextGame = new AtomicLong();
+    private final AtomicLong blueWins = new AtomicLong();
+    private final AtomicLong redWins = new AtomicLong();
+    private final AtomicLong draws = new AtomicLong();
+    private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+
+    private Manifest manifest;
+    private SampleWriter shard;
+
+    /**
+     * @param directory output directory, created if missing
+     * @param threads   number of games played at the same time
+     */
+    public SelfPlay(Path directory, Settings settings, int threads) {
+        // fail fast on invalid specifications instead of inside the workers
+        Bot bot = Bots.create(settings.bot(), settings.seed());
+        Bots.close(bot);
+        if (!(bot instanceof TreeSearch)) {
+            throw new IllegalArgumentException("Self-play needs a tree search bot (mcts, puct or nn): " + settings.bot());
+        }
+        this.directory = directory;
+        this.settings = settings;
+        this.threads = threads;
+    }
+
+    /**
+     * Plays the games not in the directory yet and streams their samples to the shards
+     * @param games total number of games of the dataset, including those of earlier runs
+     * @throws IllegalArgumentException if the directory holds a dataset with different settings
+     */
+    public void run(long games) throws IOException, InterruptedException {
+        Files.createDirectories(directory);
+        this.manifest = Manifest.open(directory, settings);
+        deleteTemporaryFiles();
+
+        long firstGame = manifest.nextGame;
+        if (firstGame >= games) {
+            System.out.printf("Dataset already has %d games in %d shards%n", firstGame, manifest.shards);
+            return;
+        }
+        nextGame.set(firstGame);
+        if (manifest.partialSamples > 0) resumePartialShard();
+
+        BlockingQueue<PlayedGame> played = new ArrayBlockingQueue<>(threads * 4);
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        long startSamples = manifest.samples + manifest.partialSamples;
+
+        for (int i = 0; i < threads; i++) {
+            workers.execute(() -> {
+                try {
+                    long game;
+                    while ((game = nextGame.getAndIncrement()) < games) {
+                        played.put(playGame(game));
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (RuntimeException e) {
+                    failure.compareAndSet(null, e);
+                    // let the other workers stop early
+                    nextGame.set(games);
+                } finally {
+                    signalEnd(played);
+                }
+            });
+        }
+        workers.shutdown();
+
+        try {
+            writeInOrder(played, firstGame);
+            // a failed game leaves a gap, the samples after it are played again on the next run
+            if (failure.get() == null) keepPartialShard(games);
+        } finally {
+            if (shard != null) shard.close();
+            workers.shutdownNow();
+            workers.awaitTermination(1, TimeUnit.MINUTES);
+        }
+
+        if (failure.get() != null) throw new IllegalStateException("Self-play failed", failure.get());
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long samples = manifest.samples + manifest.partialSamples - startSamples;
+        System.out.printf("%d games, %d samples in %.1f s (%.1f samples/s): blue %d, red %d, draws %d, %d shards in %s%n",
+                games - firstGame, samples, seconds, samples / seconds,
+                blueWins.get(), redWins.get(), draws.get(), manifest.shards, directory);
+    }
+
+    /**
+     * Writes the games in the order of their index, holding back games finished ahead of an earlier one
+     */
+    private void writeInOrder(BlockingQueue<PlayedGame> played, long firstGame) throws IOException, InterruptedException {
+        Map<Long, PlayedGame> waiting = new HashMap<>();
+        long expected = firstGame;
+        int skip = manifest.skipSamples;
+        int finishedWorkers = 0;
+        while (finishedWorkers < threads) {
+            PlayedGame game = played.take();
+            if (game == END) {
+                finishedWorkers++;
+                continue;
+            }
+            waiting.put(game.game(), game);
+            while ((game = waiting.remove(expected)) != null) {
+                writeGame(game, skip);
+                skip = 0;
+                expected++;
+            }
+        }
+    }
+
+    /**
+     * Writes all samples of a game
+     * @param skip number of its first samples already in a finished shard
+     */
+    private void writeGame(PlayedGame game, int skip) throws IOException {
+        Position position = new Position(game.position().firstTurn());
+        Player winner = game.position().winner();
+        int total = game.policies().length * settings.symmetries();
+
+        int index = 0;
+        for (int ply = 0; ply < game.policies().length; ply++) {
+            for (int symmetry = 0; symmetry < settings.symmetries(); symmetry++) {
+                if (index++ < skip) continue;
+                if (shard == null) this.shard = new SampleWriter(temporaryShard(), settings.compress());
+                shard.write(position, game.policies()[ply], winner, symmetry);
+                if (shard.getSamples() == settings.shardSamples()) {
+                    if (index == total) finishShard(game.game() + 1, 0);
+                    else finishShard(game.game(), index);
+                }
+            }
+            position.makeMove(game.position().moveAt(ply));
+        }
+    }
+
+    /**
+     * Closes the current shard, gives it its final name and records it in the manifest
+     * @param nextGame    first game not completely written
+     * @param skipSamples samples of that game already written
+     */
+    private void finishShard(long nextGame, int skipSamples) throws IOException {
+        if (shard == null) return;
+
+        long samples = shard.getSamples();
+        shard.close();
+        this.shard = null;
+        Path partial = partialShard();
+        Files.move(temporaryShard(), shardFile(manifest.shards), StandardCopyOption.REPLACE_EXISTING);
+
+        manifest.shards++;
+        manifest.samples += samples;
+        manifest.partialSamples = 0;
+        manifest.nextGame = nextGame;
+        manifest.skipSamples = skipSamples;
+        manifest.save();
+        // the shard continued the samples of an earlier run
+        Files.deleteIfExists(partial);
+        System.out.printf("Shard %d: %d samples, %d games done%n", manifest.shards - 1, samples, nextGame);
+    }
+
+    /**
+     * Keeps the samples of the current shard, which is not full, for the next run
+     * @param nextGame first game not written
+     */
+    private void keepPartialShard(long nextGame) throws IOException {
+        if (shard == null) return;
+
+        long samples = shard.getSamples();
+        shard.close();
+        this.shard = null;
+        Files.move(temporaryShard(), partialShard(), StandardCopyOption.REPLACE_EXISTING);
+
+        manifest.partialSamples = samples;
+        manifest.nextGame = nextGame;
+        manifest.skipSamples = 0;
+        manifest.save();
+        System.out.printf("Partial shard %d: %d samples, %d games done%n", manifest.shards, samples, nextGame);
+    }
+
+    /**
+     * Starts the current shard with the samples kept by the previous run. Only as many samples as the manifest
+     * records are copied, the file may hold more if the run was interrupted before saving the manifest.
+     */
+    private void resumePartialShard() throws IOException {
+        Path partial = partialShard();
+        this.shard = new SampleWriter(temporaryShard(), settings.compress());
+        try (SampleReader reader = new SampleReader(partial)) {
+            for (long i = 0; i < manifest.partialSamples; i++) {
+                if (!reader.next()) throw new IOException("Partial shard ends after " + i + " samples: " + partial);
+                shard.writeRaw(reader.rawSample());
+            }
+        }
+    }
+
+    private Path shardFile(long index) {
+        return directory.resolve(String.format("shard-%06d.utts%s", index, settings.compress() ? ".gz" : ""));
+    }
+
+    private Path temporaryShard() {
+        Path file = shardFile(manifest.shards);
+        return file.resolveSibling(file.getFileName() + TEMPORARY_SUFFIX);
+    }
+
+    private Path partialShard() {
+        Path file = shardFile(manifest.shards);
+        return file.resolveSibling(file.getFileName() + PARTIAL_SUFFIX);
+    }
+
+    /**
+     * Removes the unfinished shard of an interrupted run
+     */
+    private void deleteTemporaryFiles() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + TEMPORARY_SUFFIX)) {
+            for (Path file : files) Files.delete(file);
+        }
+    }
+
+    private static void signalEnd(BlockingQueue<PlayedGame> played) {
+        try {
+            played.put(END);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Plays one game with a fresh bot, recording the root visit shares of every search
+     */
+    private PlayedGame playGame(long game) {
+        long gameSeed = settings.seed() * 0x9E3779B97F4A7C15L + game;
+        Bot bot = Bots.create(settings.bot(), gameSeed);
+        TreeSearch search = (TreeSearch) bot;
+        SplittableRandom random = new SplittableRandom(gameSeed);
+
+        Position position = new Position(game % 2 == 0 ? Player.BLUE : Player.RED);
+        float[][] policies = new float[Position.CELLS][];
+        long[] visits = new long[Position.CELLS];
+        while (!position.isGameOver()) {
+            search.searchFrom(position);
+            Arrays.fill(visits, 0);
+            search.addRootVisits(visits);
+
+            long total = 0;
+            int best = -1;
+            for (int cell = 0; cell < Position.CELLS; cell++) {
+                total += visits[cell];
+                if (visits[cell] > 0 && (best == -1 || visits[cell] > visits[best])) best = cell;
+            }
+            if (best == -1) throw new IllegalStateException("Search without visits in game " + game);
+
+            float[] policy = new float[Position.CELLS];
+            for (int cell = 0; cell < Position.CELLS; cell++) policy[cell] = (float) visits[cell] / total;
+            policies[position.ply()] = policy;
+
+            int move = position.ply() < settings.temperaturePlies() ? sample(visits, total, random) : best;
+            position.makeMove(move);
+        }
+
+        Player winner = position.winner();
+        if (winner == Player.BLUE) blueWins.incrementAndGet();
+        else if (winner == Player.RED) redWins.incrementAndGet();
+        else draws.incrementAndGet();
+
+        return new PlayedGame(game, position, Arrays.copyOf(policies, position.ply()));
+    }
+
+    /**
+     * @return a cell drawn with a probability proportional to its visits
+     */
+    private static int sample(long[] visits, long total, SplittableRandom random) {
+        long target = random.nextLong(total);
+        for (int cell = 0; cell < Position.CELLS; cell++) {
+            target -= visits[cell];
+            if (target < 0) return cell;
+        }
+        throw new IllegalStateException("Visits do not add up to " + total);
+    }
+
+    /**
+     * Settings of a dataset, all games of it are played with the same ones
+     * @param bot              specification of a tree search bot, see {@link Bots}
+     * @param seed             base seed, every game derives its own seed from it
+     * @param shardSamples     samples per shard
+     * @param compress         true for GZIP compressed shards
+     * @param symmetries       1 to write positions as played, {@link Symmetry#COUNT} to add all their symmetries
+     * @param temperaturePlies number of plies at the start of a game with moves drawn by visits
+     */
+    public record Settings(String bot, long seed, int shardSamples, boolean compress, int symmetries,
+                           int temperaturePlies) {
+
+        private void store(Properties properties) {
+            properties.setProperty("bot", bot);
+            properties.setProperty("seed", Long.toString(seed));
+            properties.setProperty("shard-samples", Integer.toString(shardSamples));
+            properties.setProperty("compression", compress ? "gzip" : "none");
+            properties.setProperty("symmetries", Integer.toString(symmetries));
+            properties.setProperty("temperature-plies", Integer.toString(temperaturePlies));
+        }
+
+        private static Settings load(Properties properties) {
+            return new Settings(properties.getProperty("bot"),
+                    Long.parseLong(properties.getProperty("seed")),
+                    Integer.parseInt(properties.getProperty("shard-samples")),
+                    properties.getProperty("compression").equals("gzip"),
+                    Integer.parseInt(properties.getProperty("symmetries")),
+                    Integer.parseInt(properties.getProperty("temperature-plies")));
+        }
+    }
+
+    /**
+     * Progress of a dataset, saved after every finished shard and at the end of a run
+     */
+    private static final class Manifest {
+        private final Path file;
+        private final Settings settings;
+        private long shards;
+        private long samples;
+        private long nextGame;
+        private int skipSamples;
+        // samples in the partial shard after the finished ones
+        private long partialSamples;
+
+        private Manifest(Path file, Settings settings) {
+            this.file = file;
+            this.settings = settings;
+        }
+
+        /**
+         * Reads the manifest of the directory, or starts a new one if there is none
+         */
+        private static Manifest open(Path directory, Settings settings) throws IOException {
+            Path file = directory.resolve(MANIFEST);
+            Manifest manifest = new Manifest(file, settings);
+            if (!Files.exists(file)) return manifest;
+
+            Properties properties = new Properties();
+            try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                properties.load(reader);
+            }
+            try {
+                Settings existing = Settings.load(properties);
+                if (!existing.equals(settings)) {
+                    throw new IllegalArgumentException(directory + " holds a dataset with different settings: " + existing);
+                }
+                manifest.shards = Long.parseLong(properties.getProperty("shards"));
+                manifest.samples = Long.parseLong(properties.getProperty("samples"));
+                manifest.nextGame = Long.parseLong(properties.getProperty("next-game"));
+                manifest.skipSamples = Integer.parseInt(properties.getProperty("skip-samples"));
+                // missing in manifests written before partial shards were kept
+                manifest.partialSamples = Long.parseLong(properties.getProperty("partial-samples", "0"));
+            } catch (NullPointerException | NumberFormatException e) {
+                throw new IOException("Invalid manifest " + file, e);
+            }
+            return manifest;
+        }
+
+        /**
+         * Replaces the manifest file in one step, so an interruption leaves the previous one
+         */
+        private void save() throws IOException {
+            Properties properties = new Properties();
+            settings.store(properties);
+            properties.setProperty("shards", Long.toString(shards));
+            properties.setProperty("samples", Long.toString(samples));
+            properties.setProperty("next-game", Long.toString(nextGame));
+            properties.setProperty("skip-samples", Integer.toString(skipSamples));
+            properties.setProperty("partial-samples", Long.toString(partialSamples));
+
+            Path temporary = file.resolveSibling(file.getFileName() + TEMPORARY_SUFFIX);
+            try (Writer writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+                properties.store(writer, "Self-play dataset, see " + SelfPlay.class.getName());
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    /**
+     * Game handed from a worker to the writing thread
+     * @param position final position of the game
+     * @param policies search policy of every ply
+     */
+    private record PlayedGame(long game, Position position, float[][] policies) {
+    }
+}
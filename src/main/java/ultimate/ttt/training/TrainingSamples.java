@@ -0,0 +1,50 @@
+package ultimate.ttt.training;
+
+import ultimate.ttt.Player;
+import ultimate.ttt.engine.Position;
+
+/**
+ * Layout of the binary training sample format written by {@link SelfPlay}. <br>
+ * A shard starts with an 8-byte header: the magic bytes {@code UTTS}, a version byte and 3 reserved bytes.
+ * It is followed by samples of exactly {@value #SAMPLE_BYTES} bytes, so sample i of an uncompressed shard starts
+ * at byte {@code 8 + i * SAMPLE_BYTES}. Each sample is
+ * <ul>
+ *     <li>1 flag byte: bit 0 is the first player of the game (0 blue, 1 red), bits 1-2 the result of the game
+ *     ({@link #RESULT_BLUE}, {@link #RESULT_RED} or {@link #RESULT_DRAW})</li>
+ *     <li>1 byte with the number of moves n (0-80) leading to the position</li>
+ *     <li>81 bytes: the cell index 0-80 of every move (see {@link Position}), followed by unused zero bytes</li>
+ *     <li>81 unsigned big-endian shorts: the search policy per cell, in units of 1/65535</li>
+ * </ul>
+ * Storing the moves instead of the cells lets a reader rebuild a complete {@link Position}, forced board
+ * included. Compressed shards are the same bytes in a GZIP stream.
+ */
+public final class TrainingSamples {
+
+    static final byte[] MAGIC = {'U', 'T', 'T', 'S'};
+    static final byte VERSION = 1;
+    static final int HEADER_BYTES = 8;
+
+    /**
+     * Size of every sample
+     */
+    public static final int SAMPLE_BYTES = 2 + Position.CELLS + 2 * Position.CELLS;
+
+    static final int RESULT_BLUE = 1;
+    static final int RESULT_RED = 2;
+    static final int RESULT_DRAW = 3;
+
+    static final int POLICY_SCALE = 0xFFFF;
+
+    private TrainingSamples() {
+    }
+
+    /**
+     * @return flag byte of a sample from a game with the given first player and winner
+     * @param winner {@link Player#NONE} for a draw
+     */
+    static int flags(Player firstTurn, Player winner) {
+        int first = firstTurn == Player.RED ? 1 : 0;
+        int result = winner == Player.BLUE ? RESULT_BLUE : winner == Player.RED ? RESULT_RED : RESULT_DRAW;
+        return first | result << 1;
+    }
+}
@@ -0,0 +1,347 @@
+package ultimate.ttt.engine;
+
+import org.junit.jupiter.api.Test;
+import ultimate.ttt.BoardState;
+import ultimate.ttt.Player;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks {@link Position} against a plain reimplementation of the rules of the original Board and UltimateBoard
+ * (see {@link Reference}), and its incremental state against the same state recomputed from the stones on the board.
+ */
+class PositionTest {
+
+    private static final long SEED = 20260101L;
+    private static final int SEED_POSITIONS = 64;
+    private static final int GAMES = 500;
+
+    @Test
+    void perftFromTheEmptyBoard() {
+        Position position = new Position();
+        long[] expected = {1, 81, 720, 6336, 55080, 473256};
+        for (int depth = 0; depth < expected.length; depth++) {
+            assertEquals(expected[depth], perft(position, depth), "perft " + depth);
+        }
+    }
+
+    @Test
+    void perftMatchesTheReferenceRules() {
+        Position[] positions = seedPositions();
+        for (int i = 0; i < positions.length; i++) {
+            Reference reference = Reference.replay(positions[i]);
+            for (int depth = 1; depth <= 3; depth++) {
+                assertEquals(perft(reference, depth), perft(positions[i], depth), "seed position " + i + ", perft " + depth);
+            }
+        }
+    }
+
+    @Test
+    void gamesFollowTheReferenceRules() {
+        SplittableRandom random = new SplittableRandom(SEED);
+        int[] moves = new int[Position.CELLS];
+        for (int game = 0; game < GAMES; game++) {
+            Player first = game % 2 == 0 ? Player.BLUE : Player.RED;
+            Position position = new Position(first);
+            Reference reference = new Reference(first);
+            while (true) {
+                String at = "game " + game + ", ply " + position.ply();
+                int count = position.legalMoves(moves);
+                int[] legal = Arrays.copyOf(moves, count);
+                Arrays.sort(legal);
+                assertEquals(Arrays.toString(reference.legalMoves()), Arrays.toString(legal), at);
+                assertEquals(reference.forcedBoard, position.forcedBoard(), at);
+                assertEquals(reference.toMove, position.sideToMove(), at);
+                assertEquals(reference.winner, position.winner(), at);
+                assertEquals(reference.isDraw(), position.isDraw(), at);
+                assertEquals(reference.isGameOver(), position.isGameOver(), at);
+                for (int board = 0; board < 9; board++) {
+                    assertEquals(reference.states[board], position.boardState(board), at + ", board " + board);
+                }
+                if (count == 0) break;
+
+                int move = legal[random.nextInt(count)];
+                position.makeMove(move);
+                reference.play(move);
+            }
+        }
+    }
+
+    @Test
+    void unmakeRestoresThePosition() {
+        int[] moves = new int[Position.CELLS];
+        for (Position position : seedPositions()) {
+            List<Object> before = snapshot(position);
+            int count = position.legalMoves(moves);
+            for (int i = 0; i < count; i++) {
+                position.makeMove(moves[i]);
+                position.unmakeMove();
+                assertEquals(before, snapshot(position), "move " + moves[i]);
+            }
+        }
+
+        // taking back a whole game gives the empty board again
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (int game = 0; game < GAMES; game++) {
+            Position position = new Position(Player.RED);
+            List<Object> empty = snapshot(position);
+            while (!position.isGameOver()) position.makeMove(moves[random.nextInt(position.legalMoves(moves))]);
+            while (position.ply() > 0) position.unmakeMove();
+            assertEquals(empty, snapshot(position), "game " + game);
+        }
+    }
+
+    @Test
+    void incrementalStateMatchesRecomputation() {
+        SplittableRandom random = new SplittableRandom(SEED);
+        int[] moves = new int[Position.CELLS];
+        Position image = new Position();
+        Position copy = new Position();
+        for (int game = 0; game < GAMES; game++) {
+            Position position = new Position(game % 2 == 0 ? Player.BLUE : Player.RED);
+            while (true) {
+                String at = "game " + game + ", ply " + position.ply();
+                for (int symmetry = 0; symmetry < Symmetry.COUNT; symmetry++) {
+                    assertEquals(hash(position, symmetry), position.symmetricHash(symmetry), at + ", symmetry " + symmetry);
+                    Symmetry.apply(symmetry, position, image);
+                    assertEquals(position.symmetricHash(symmetry), image.hash(), at + ", symmetry " + symmetry);
+                }
+                assertEquals(hash(position, Symmetry.IDENTITY), position.hash(), at);
+                assertEquals(liveLines(position, Player.BLUE), position.liveLines(Player.BLUE), at);
+                assertEquals(liveLines(position, Player.RED), position.liveLines(Player.RED), at);
+                copy.copyFrom(position);
+                assertEquals(snapshot(position), snapshot(copy), at);
+
+                if (position.isGameOver()) break;
+                position.makeMove(moves[random.nextInt(position.legalMoves(moves))]);
+            }
+        }
+    }
+
+    /**
+     * Positions between the opening and the late middle game, reached by random play like the benchmark seeds
+     */
+    private static Position[] seedPositions() {
+        SplittableRandom random = new SplittableRandom(SEED);
+        int[] moves = new int[Position.CELLS];
+        Position[] positions = new Position[SEED_POSITIONS];
+        for (int i = 0; i < SEED_POSITIONS; i++) {
+            Position position = new Position();
+            int plies = random.nextInt(50);
+            for (int ply = 0; ply < plies; ply++) {
+                position.makeMove(moves[random.nextInt(position.legalMoves(moves))]);
+                if (position.isGameOver()) {
+                    position.unmakeMove();
+                    break;
+                }
+            }
+            positions[i] = position;
+        }
+        return positions;
+    }
+
+    private static long perft(Position position, int depth) {
+        if (depth == 0) return 1;
+        int[] moves = new int[Position.CELLS];
+        int count = position.legalMoves(moves);
+        if (depth == 1) return count;
+        long nodes = 0;
+        for (int i = 0; i < count; i++) {
+            position.makeMove(moves[i]);
+            nodes += perft(position, depth - 1);
+            position.unmakeMove();
+        }
+        return nodes;
+    }
+
+    private static long perft(Reference reference, int depth) {
+        if (depth == 0) return 1;
+        int[] moves = reference.legalMoves();
+        if (depth == 1) return moves.length;
+        long nodes = 0;
+        for (int move : moves) {
+            Reference child = new Reference(reference);
+            child.play(move);
+            nodes += perft(child, depth - 1);
+        }
+        return nodes;
+    }
+
+    /**
+     * Everything observable about a position
+     */
+    private static List<Object> snapshot(Position position) {
+        List<Object> state = new ArrayList<>();
+        for (int symmetry = 0; symmetry < Symmetry.COUNT; symmetry++) state.add(position.symmetricHash(symmetry));
+        for (int cell = 0; cell < Position.CELLS; cell++) state.add(position.cellState(cell));
+        for (int board = 0; board < 9; board++) state.add(position.boardState(board));
+        for (int ply = 0; ply < position.ply(); ply++) state.add(position.moveAt(ply));
+        state.add(position.playableBoards());
+        state.add(position.forcedBoard());
+        state.add(position.sideToMove());
+        state.add(position.firstTurn());
+        state.add(position.ply());
+        state.add(position.winner());
+        state.add(position.isDraw());
+        state.add(position.isGameOver());
+        state.add(position.liveLines(Player.BLUE));
+        state.add(position.liveLines(Player.RED));
+        return state;
+    }
+
+    /**
+     * Zobrist hash of a position seen through a symmetry, computed from its stones instead of its moves
+     */
+    private static long hash(Position position, int symmetry) {
+        long hash = Zobrist.forced(Symmetry.board(symmetry, position.forcedBoard()));
+        if (position.sideToMove() == Player.RED) hash ^= Zobrist.side();
+        for (int cell = 0; cell < Position.CELLS; cell++) {
+            int board = Position.boardOf(cell);
+            int bit = 1 << Position.squareOf(cell);
+            if ((position.localMask(Player.BLUE, board) & bit) != 0) hash ^= Zobrist.cell(0, Symmetry.cell(symmetry, cell));
+            if ((position.localMask(Player.RED, board) & bit) != 0) hash ^= Zobrist.cell(1, Symmetry.cell(symmetry, cell));
+        }
+        return hash;
+    }
+
+    /**
+     * Macro lines without a board claimed by the opponent or drawn
+     */
+    private static int liveLines(Position position, Player player) {
+        Player opponent = player == Player.BLUE ? Player.RED : Player.BLUE;
+        int blocked = position.claimedBoards(opponent) | position.drawnBoards();
+        int live = 0;
+        for (int line = 0; line < Lines.LINES.length; line++) {
+            if ((Lines.LINES[line] & blocked) == 0) live |= 1 << line;
+        }
+        return live;
+    }
+
+    /**
+     * The rules as the original Board and UltimateBoard implemented them, on plain arrays: <br>
+     * a local board is drawn once neither player can complete a line on it anymore, the next player is sent
+     * to the board of the square just played unless that board is claimed or drawn, and the game is drawn
+     * once neither player can complete a line of boards that are not drawn or claimed by the opponent.
+     */
+    private static final class Reference {
+
+        private static final int[][] LINES = {
+                {0, 1, 2}, {3, 4, 5}, {6, 7, 8},
+                {0, 3, 6}, {1, 4, 7}, {2, 5, 8},
+                {0, 4, 8}, {2, 4, 6}
+        };
+
+        // owner of every square per board
+        private final Player[][] squares = new Player[9][9];
+        private final BoardState[] states = new BoardState[9];
+        private int forcedBoard = Position.ANY_BOARD;
+        private Player toMove;
+        private Player winner = Player.NONE;
+
+        Reference(Player firstTurn) {
+            for (Player[] board : squares) Arrays.fill(board, Player.NONE);
+            Arrays.fill(states, BoardState.UNCLAIMED);
+            this.toMove = firstTurn;
+        }
+
+        Reference(Reference other) {
+            for (int board = 0; board < 9; board++) squares[board] = other.squares[board].clone();
+            System.arraycopy(other.states, 0, states, 0, 9);
+            this.forcedBoard = other.forcedBoard;
+            this.toMove = other.toMove;
+            this.winner = other.winner;
+        }
+
+        static Reference replay(Position position) {
+            Reference reference = new Reference(position.firstTurn());
+            for (int ply = 0; ply < position.ply(); ply++) reference.play(position.moveAt(ply));
+            return reference;
+        }
+
+        void play(int cell) {
+            int board = cell / 9;
+            int square = cell % 9;
+            squares[board][square] = toMove;
+
+            if (completesLine(squares[board], toMove)) {
+                states[board] = toMove == Player.BLUE ? BoardState.CLAIMED_BLUE : BoardState.CLAIMED_RED;
+                if (completesLine(claimedBoards(), toMove)) winner = toMove;
+            } else if (!canWinLocal(board, Player.BLUE) && !canWinLocal(board, Player.RED)) {
+                states[board] = BoardState.DRAW;
+            }
+
+            forcedBoard = states[square] == BoardState.UNCLAIMED ? square : Position.ANY_BOARD;
+            toMove = opponent(toMove);
+        }
+
+        /**
+         * @return legal cells in ascending order
+         */
+        int[] legalMoves() {
+            if (isGameOver()) return new int[0];
+            List<Integer> moves = new ArrayList<>();
+            for (int board = 0; board < 9; board++) {
+                if (states[board] != BoardState.UNCLAIMED) continue;
+                if (forcedBoard != Position.ANY_BOARD && forcedBoard != board) continue;
+                for (int square = 0; square < 9; square++) {
+                    if (squares[board][square] == Player.NONE) moves.add(board * 9 + square);
+                }
+            }
+            return moves.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        boolean isDraw() {
+            return winner == Player.NONE && !canWinGlobal(Player.BLUE) && !canWinGlobal(Player.RED);
+        }
+
+        boolean isGameOver() {
+            return winner != Player.NONE || isDraw();
+        }
+
+        private Player[] claimedBoards() {
+            Player[] claimed = new Player[9];
+            for (int board = 0; board < 9; board++) {
+                if (states[board] == BoardState.CLAIMED_BLUE) claimed[board] = Player.BLUE;
+                else if (states[board] == BoardState.CLAIMED_RED) claimed[board] = Player.RED;
+                else claimed[board] = Player.NONE;
+            }
+            return claimed;
+        }
+
+        private boolean canWinLocal(int board, Player player) {
+            for (int[] line : LINES) {
+                if (squares[board][line[0]] != opponent(player) && squares[board][line[1]] != opponent(player)
+                        && squares[board][line[2]] != opponent(player)) return true;
+            }
+            return false;
+        }
+
+        private boolean canWinGlobal(Player player) {
+            BoardState opponentBoard = player == Player.BLUE ? BoardState.CLAIMED_RED : BoardState.CLAIMED_BLUE;
+            for (int[] line : LINES) {
+                boolean open = true;
+                for (int board : line) {
+                    if (states[board] == opponentBoard || states[board] == BoardState.DRAW) open = false;
+                }
+                if (open) return true;
+            }
+            return false;
+        }
+
+        private static boolean completesLine(Player[] owners, Player player) {
+            for (int[] line : LINES) {
+                if (owners[line[0]] == player && owners[line[1]] == player && owners[line[2]] == player) return true;
+            }
+            return false;
+        }
+
+        private static Player opponent(Player player) {
+            return player == Player.BLUE ? Player.RED : Player.BLUE;
+        }
+    }
+}